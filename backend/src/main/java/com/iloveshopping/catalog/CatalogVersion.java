@@ -0,0 +1,144 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.event.AttributeChangedEvent;
+import com.iloveshopping.event.BrandChangedEvent;
+import com.iloveshopping.event.CategoryChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductImageChangedEvent;
+import com.iloveshopping.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * A cluster-wide counter that moves whenever anything shown in a catalog listing may have changed.
+ *
+ * Listings are validated against it with a weak ETag, so a client or proxy can revalidate any
+ * listing with one comparison instead of the page being rebuilt. Every product, category, attribute,
+ * brand and product image change increments the counter in Redis; other nodes pick the new value
+ * up on their next refresh, which bounds how long they can answer {@code 304} for a changed catalog.
+ * Bulk updates such as stock changes raise no events; each refresh also compares the latest
+ * product {@code updated_at} with the one seen before and counts a change when it moved.
+ *
+ * The counter is seeded with the current time so a flushed Redis never reissues old tags. When
+ * Redis cannot be reached the version is unknown and listings are served without validators
+ * until a change that failed to be counted has been counted.
+ */
+@Slf4j
+@Component
+public class CatalogVersion {
+
+    static final String KEY = "catalog:version";
+
+    private static final long UNKNOWN = -1;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository productRepository;
+
+    private volatile long version = UNKNOWN;
+    private boolean pendingIncrement;
+    private LocalDateTime lastProductUpdate;
+
+    public CatalogVersion(StringRedisTemplate redisTemplate, ProductRepository productRepository) {
+        this.redisTemplate = redisTemplate;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Weak validator for listings, or null while the version is unknown.
+     */
+    public String etag() {
+        long current = version;
+        return current == UNKNOWN ? null : "W/\"catalog-" + current + "\"";
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onAttributeChanged(AttributeChangedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onBrandChanged(BrandChangedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onProductImageChanged(ProductImageChangedEvent event) {
+        increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * Pick up changes made on other nodes, or count a change that could not be counted before.
+     */
+    @Scheduled(fixedDelayString = "${app.http.catalog-version.refresh-interval:PT5S}",
+            initialDelayString = "${app.http.catalog-version.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        if (pendingIncrement || productsUpdated()) {
+            increment();
+            return;
+        }
+        try {
+            String stored = redisTemplate.opsForValue().get(KEY);
+            if (stored == null) {
+                redisTemplate.opsForValue().setIfAbsent(KEY, String.valueOf(System.currentTimeMillis()));
+                stored = redisTemplate.opsForValue().get(KEY);
+            }
+            version = stored != null ? Long.parseLong(stored) : UNKNOWN;
+        } catch (Exception e) {
+            version = UNKNOWN;
+            log.debug("Catalog version unavailable: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether a product row was written since the last refresh; the first call only records the latest write.
+     */
+    private boolean productsUpdated() {
+        try {
+            LocalDateTime latest = productRepository.findLastUpdatedAt();
+            boolean updated = latest != null && lastProductUpdate != null && latest.isAfter(lastProductUpdate);
+            if (latest != null) {
+                lastProductUpdate = latest;
+            }
+            return updated;
+        } catch (Exception e) {
+            log.debug("Latest product update unavailable: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    synchronized void increment() {
+        // Until the new value is known, no listing may be answered with the old one
+        version = UNKNOWN;
+        try {
+            redisTemplate.opsForValue().setIfAbsent(KEY, String.valueOf(System.currentTimeMillis()));
+            Long incremented = redisTemplate.opsForValue().increment(KEY);
+            pendingIncrement = incremented == null;
+            version = incremented != null ? incremented : UNKNOWN;
+        } catch (Exception e) {
+            pendingIncrement = true;
+            log.warn("Failed to increment catalog version, listings are served without validators: {}",
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.repository.ProductRepository;
+import com.iloveshopping.service.CategoryService;
+import com.iloveshopping.service.ProductDetailLoader;
+import com.iloveshopping.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads what the first minutes of traffic ask for before the node reports ready.
+ *
+ * After startup it reads the category tree, the first featured, best-seller and new-arrival
+ * pages, the most viewed product details and the first result page of the most popular searches,
+ * so the Redis and in-process caches, Hibernate's second-level regions and Postgres' buffers are
+ * warm before the load balancer sends traffic. Suggestions need no warming: the suggestion trie
+ * is built in memory at startup and already includes the popular searches. Tasks run on a
+ * pool of the configured size, kept below the connection pool so live requests are not starved,
+ * and whatever has not finished by the timeout is cancelled.
+ *
+ * Its {@link #health()} is reported by {@link CatalogWarmupHealthIndicator}, DOWN until the warm-up
+ * finishes or times out; a failed task is logged and does not hold readiness.
+ */
+@Slf4j
+@Component
+public class CatalogWarmup {
+
+    private static final String POPULAR_SEARCHES =
+            "SELECT search_term FROM popular_searches ORDER BY search_count DESC LIMIT ?";
+    private static final int DETAIL_BATCH = 20;
+    private static final int SEARCH_PAGE_SIZE = 20;
+
+    enum State { PENDING, RUNNING, DONE, TIMED_OUT, DISABLED }
+
+    private final ProductService productService;
+    private final ProductDetailLoader productDetailLoader;
+    private final CategoryService categoryService;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int parallelism;
+    private final Duration timeout;
+    private final int firstPageSize;
+    private final int topProducts;
+    private final int popularSearches;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private volatile State state;
+
+    public CatalogWarmup(
+            ProductService productService,
+            ProductDetailLoader productDetailLoader,
+            CategoryService categoryService,
+            ProductRepository productRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.warmup.enabled:true}") boolean enabled,
+            @Value("${app.warmup.parallelism:4}") int parallelism,
+            @Value("${app.warmup.timeout:PT2M}") Duration timeout,
+            @Value("${app.warmup.first-page-size:10}") int firstPageSize,
+            @Value("${app.warmup.top-products:200}") int topProducts,
+            @Value("${app.warmup.popular-searches:50}") int popularSearches) {
+        this.productService = productService;
+        this.productDetailLoader = productDetailLoader;
+        this.categoryService = categoryService;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.parallelism = Math.max(1, parallelism);
+        this.timeout = timeout;
+        this.firstPageSize = firstPageSize;
+        this.topProducts = topProducts;
+        this.popularSearches = popularSearches;
+        this.state = enabled ? State.PENDING : State.DISABLED;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (state == State.PENDING) {
+            run();
+        }
+    }
+
+    public Health health() {
+        Health.Builder health = state == State.PENDING || state == State.RUNNING ? Health.down() : Health.up();
+        return health.withDetail("state", state)
+                .withDetail("completedTasks", completed.get())
+                .withDetail("failedTasks", failed.get())
+                .withDetail("cancelledTasks", cancelled.get())
+                .build();
+    }
+
+    void run() {
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<Void>> tasks = tasks();
+            long remaining = timeout.toNanos() - (System.nanoTime() - start);
+            for (Future<Void> future : pool.invokeAll(tasks, Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                collect(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Without the task list there is nothing to warm; do not keep the node out of rotation for it
+            failed.incrementAndGet();
+            log.warn("Catalog warm-up could not be planned: {}", e.getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+        state = cancelled.get() > 0 ? State.TIMED_OUT : State.DONE;
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("catalog.warmup", "outcome", state.name().toLowerCase())
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Catalog warm-up {} in {} ms: {} tasks done, {} failed, {} cut off by the timeout",
+                state == State.DONE ? "finished" : "timed out", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                completed.get(), failed.get(), cancelled.get());
+    }
+
+    State state() {
+        return state;
+    }
+
+    /**
+     * Cheap, widely shared entries first, so a timeout cuts the long tail of details and searches.
+     */
+    List<Callable<Void>> tasks() {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(task(categoryService::getCategoryTree));
+        tasks.add(task(categoryService::getAllCategories));
+        PageRequest firstPage = PageRequest.of(0, firstPageSize);
+        tasks.add(task(() -> productService.getFeaturedProducts(firstPage)));
+        tasks.add(task(() -> productService.getBestSellers(firstPage)));
+        tasks.add(task(() -> productService.getNewArrivals(firstPage)));
+
+        // Straight to the loader: the service would count these as product views
+        List<UUID> mostViewed = topProducts > 0
+                ? productRepository.findMostViewedIds(PageRequest.of(0, topProducts))
+                : List.of();
+        for (int from = 0; from < mostViewed.size(); from += DETAIL_BATCH) {
+            List<UUID> batch = mostViewed.subList(from, Math.min(from + DETAIL_BATCH, mostViewed.size()));
+            tasks.add(task(() -> productDetailLoader.loadAll(batch)));
+        }
+
+        List<String> terms = popularSearches > 0
+                ? jdbcTemplate.queryForList(POPULAR_SEARCHES, String.class, popularSearches)
+                : List.of();
+        for (String term : terms) {
+            tasks.add(task(() -> productService.preloadSearch(term, SEARCH_PAGE_SIZE)));
+        }
+        return tasks;
+    }
+
+    private void collect(Future<Void> future) throws InterruptedException {
+        try {
+            future.get();
+            completed.incrementAndGet();
+        } catch (CancellationException e) {
+            cancelled.incrementAndGet();
+        } catch (ExecutionException e) {
+            failed.incrementAndGet();
+            log.warn("Catalog warm-up task failed: {}", e.getCause().getMessage());
+        }
+    }
+
+    private static Callable<Void> task(Runnable work) {
+        return () -> {
+            work.run();
+            return null;
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.iloveshopping.catalog;
+
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.health.AdditionalHealthEndpointPath;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.HealthEndpointGroupsPostProcessor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code catalogWarmup} health contributor, DOWN while the {@link CatalogWarmup} runs.
+ *
+ * It belongs to the readiness group only: the root {@code /actuator/health} stays UP during the
+ * warm-up, so the container health check does not restart a node that is still warming. It is a
+ * bean of its own because the warm-up itself is an {@code @Async} proxy.
+ */
+@Component
+public class CatalogWarmupHealthIndicator implements HealthIndicator, HealthEndpointGroupsPostProcessor {
+
+    /**
+     * Contributor name, derived from the bean name.
+     */
+    static final String NAME = "catalogWarmup";
+
+    private final CatalogWarmup warmup;
+
+    public CatalogWarmupHealthIndicator(CatalogWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    public Health health() {
+        return warmup.health();
+    }
+
+    @Override
+    public HealthEndpointGroups postProcessHealthEndpointGroups(HealthEndpointGroups groups) {
+        Map<String, HealthEndpointGroup> named = new HashMap<>();
+        for (String name : groups.getNames()) {
+            named.put(name, groups.get(name));
+        }
+        return HealthEndpointGroups.of(new WithoutWarmup(groups.getPrimary()), named);
+    }
+
+    private record WithoutWarmup(HealthEndpointGroup delegate) implements HealthEndpointGroup {
+
+        @Override
+        public boolean isMember(String name) {
+            return !NAME.equals(name) && delegate.isMember(name);
+        }
+
+        @Override
+        public boolean showComponents(SecurityContext securityContext) {
+            return delegate.showComponents(securityContext);
+        }
+
+        @Override
+        public boolean showDetails(SecurityContext securityContext) {
+            return delegate.showDetails(securityContext);
+        }
+
+        @Override
+        public StatusAggregator getStatusAggregator() {
+            return delegate.getStatusAggregator();
+        }
+
+        @Override
+        public HttpCodeStatusMapper getHttpCodeStatusMapper() {
+            return delegate.getHttpCodeStatusMapper();
+        }
+
+        @Override
+        public AdditionalHealthEndpointPath getAdditionalPath() {
+            return delegate.getAdditionalPath();
+        }
+    }
+}
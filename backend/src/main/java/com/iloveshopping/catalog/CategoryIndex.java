@@ -0,0 +1,107 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.event.CategoryChangedEvent;
+import com.iloveshopping.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current {@link CategoryTree} snapshot.
+ *
+ * The snapshot is built from a single query and replaced by reference after every committed
+ * category change, so readers always see one consistent tree and never touch the database.
+ * Changes arriving during a build trigger another build once it finishes. A scheduled rebuild
+ * picks up changes made outside the application and retries a build that failed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryIndex {
+
+    private final CategoryRepository categoryRepository;
+
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile CategoryTree tree;
+
+    /**
+     * The current snapshot, built on the calling thread if none exists yet.
+     */
+    public CategoryTree tree() {
+        CategoryTree current = tree;
+        if (current == null) {
+            synchronized (this) {
+                current = tree;
+                if (current == null) {
+                    install(load());
+                    current = tree;
+                }
+            }
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Async
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.category-tree.rebuild-interval:PT10M}",
+            initialDelayString = "${app.catalog.category-tree.rebuild-interval:PT10M}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Build a fresh snapshot and swap it in.
+     */
+    public void rebuild() {
+        stale.set(true);
+        while (stale.get() && rebuilding.compareAndSet(false, true)) {
+            try {
+                // Cleared before reading so changes committed during the build trigger another one
+                stale.set(false);
+                long start = System.currentTimeMillis();
+                CategoryTree fresh = load();
+                install(fresh);
+                log.info("Category tree v{} built: {} categories in {} ms",
+                        fresh.version(), fresh.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                // Keep the change owed, so the next rebuild does not skip it
+                stale.set(true);
+                log.error("Failed to build category tree", e);
+                return;
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    /**
+     * Versions follow the order builds started in, so a slow older build never replaces a newer tree.
+     */
+    private synchronized void install(CategoryTree fresh) {
+        if (tree == null || fresh.version() > tree.version()) {
+            tree = fresh;
+        }
+    }
+
+    private CategoryTree load() {
+        return CategoryTree.build(versions.incrementAndGet(), categoryRepository.findAllRows());
+    }
+}
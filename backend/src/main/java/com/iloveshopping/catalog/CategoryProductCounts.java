@@ -0,0 +1,142 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent.ProductState;
+import com.iloveshopping.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active product counts per category, both direct and rolled up over all descendants.
+ *
+ * Counts are loaded with one GROUP BY at startup and then maintained from product change
+ * events: the category a product leaves is decremented along its ancestor path and the one it
+ * enters incremented. Roll-ups are recomputed in memory when the category tree is rebuilt, and
+ * a periodic reconcile reloads the direct counts to repair drift from writes that bypass
+ * Hibernate events. Events are applied asynchronously, so one can arrive after a reconcile
+ * whose reload already counted its commit; a reconcile remembers the last event sequence
+ * created before it read, and older events are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryProductCounts {
+
+    private final ProductRepository productRepository;
+    private final CategoryIndex categoryIndex;
+
+    private volatile Map<UUID, Long> direct = new ConcurrentHashMap<>();
+    private volatile Map<UUID, Long> rolledUp = new ConcurrentHashMap<>();
+    private volatile long rolledUpVersion = -1;
+    private long reconciledThrough;
+
+    /**
+     * Active products assigned to the category itself.
+     */
+    public long direct(UUID categoryId) {
+        return direct.getOrDefault(categoryId, 0L);
+    }
+
+    /**
+     * Active products in the category and all of its descendants.
+     */
+    public long rolledUp(UUID categoryId) {
+        if (categoryIndex.tree().version() != rolledUpVersion) {
+            rollUp();
+        }
+        return rolledUp.getOrDefault(categoryId, 0L);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.product-counts.reconcile-interval:PT1H}",
+            initialDelayString = "${app.catalog.product-counts.reconcile-interval:PT1H}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Increments and decrements commute, so events may be applied in any order.
+     */
+    @Async
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.ChangeType.UPDATED && event.before() == null) {
+            // A merged detached entity carries no previous state, so the category it left is unknown
+            reconcile();
+            return;
+        }
+        synchronized (this) {
+            if (event.sequence() <= reconciledThrough) {
+                return;
+            }
+            CategoryTree tree = categoryIndex.tree();
+            if (tree.version() != rolledUpVersion) {
+                rollUp();
+            }
+            apply(tree, event.before(), -1);
+            apply(tree, event.after(), 1);
+        }
+    }
+
+    /**
+     * Reload direct counts from the database and recompute the roll-ups.
+     */
+    public synchronized void reconcile() {
+        // Taken before reading, so only events whose commit the reload includes are skipped; one created
+        // while the reload runs may still be counted twice until the next reconcile
+        long through = ProductChangedEvent.lastSequence();
+        try {
+            Map<UUID, Long> loaded = new ConcurrentHashMap<>();
+            for (Object[] row : productRepository.countByCategory()) {
+                if (row[0] != null) {
+                    loaded.put((UUID) row[0], ((Number) row[1]).longValue());
+                }
+            }
+            direct = loaded;
+            reconciledThrough = through;
+            rolledUpVersion = -1;
+            rollUp();
+            log.debug("Category product counts reconciled for {} categories", direct.size());
+        } catch (Exception e) {
+            log.error("Failed to load category product counts", e);
+        }
+    }
+
+    private synchronized void rollUp() {
+        CategoryTree tree = categoryIndex.tree();
+        if (tree.version() == rolledUpVersion) {
+            return;
+        }
+        Map<UUID, Long> rolled = new ConcurrentHashMap<>();
+        direct.forEach((categoryId, count) -> {
+            for (CategoryTree.Node node : tree.breadcrumb(categoryId)) {
+                rolled.merge(node.id(), count, Long::sum);
+            }
+        });
+        rolledUp = rolled;
+        rolledUpVersion = tree.version();
+    }
+
+    private void apply(CategoryTree tree, ProductState state, long delta) {
+        if (state == null || !state.active() || state.categoryId() == null) {
+            return;
+        }
+        direct.merge(state.categoryId(), delta, Long::sum);
+        for (CategoryTree.Node node : tree.breadcrumb(state.categoryId())) {
+            rolledUp.merge(node.id(), delta, Long::sum);
+        }
+    }
+}
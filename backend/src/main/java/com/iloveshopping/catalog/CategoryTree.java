@@ -0,0 +1,256 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.repository.CategoryRow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the whole category hierarchy.
+ *
+ * Nodes are stored in pre-order, so every subtree is a contiguous slice of the node array.
+ * Parent and child links are array indexes, and depth, breadcrumb path and descendant ids are
+ * computed once at build time. A snapshot is never modified; a catalog change builds a new one.
+ */
+public final class CategoryTree {
+
+    private static final Comparator<CategoryRow> SIBLING_ORDER = Comparator
+            .comparing((CategoryRow row) -> row.displayOrder() != null ? row.displayOrder() : 0)
+            .thenComparing(CategoryRow::name, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * One category with its precomputed position in the hierarchy.
+     */
+    public record Node(UUID id, UUID parentId, String name, String slug, String description, String imageUrl,
+                       int displayOrder, boolean active, int depth, String fullPath) {}
+
+    private final long version;
+    private final Node[] nodes;
+    private final int[] parents;
+    private final int[][] children;
+    private final int[] roots;
+    private final int[][] paths;
+    private final List<Set<UUID>> descendants;
+    private final List<Node> activeByDisplayOrder;
+    private final Map<UUID, Integer> byId;
+    private final Map<String, Integer> bySlug;
+
+    private CategoryTree(long version, Node[] nodes, int[] parents, int[][] children, int[] roots, int[][] paths,
+                         List<Set<UUID>> descendants, List<Node> activeByDisplayOrder,
+                         Map<UUID, Integer> byId, Map<String, Integer> bySlug) {
+        this.version = version;
+        this.nodes = nodes;
+        this.parents = parents;
+        this.children = children;
+        this.roots = roots;
+        this.paths = paths;
+        this.descendants = descendants;
+        this.activeByDisplayOrder = activeByDisplayOrder;
+        this.byId = byId;
+        this.bySlug = bySlug;
+    }
+
+    /**
+     * Build a snapshot from flat rows. Categories unreachable from a root (a parent cycle)
+     * are left out.
+     */
+    public static CategoryTree build(long version, List<CategoryRow> rows) {
+        Map<UUID, List<CategoryRow>> childRows = new HashMap<>();
+        List<CategoryRow> rootRows = new ArrayList<>();
+        Set<UUID> ids = new HashSet<>();
+        rows.forEach(row -> ids.add(row.id()));
+        for (CategoryRow row : rows) {
+            if (row.parentId() == null || !ids.contains(row.parentId())) {
+                rootRows.add(row);
+            } else {
+                childRows.computeIfAbsent(row.parentId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        rootRows.sort(SIBLING_ORDER);
+        childRows.values().forEach(siblings -> siblings.sort(SIBLING_ORDER));
+
+        int size = rows.size();
+        List<Node> ordered = new ArrayList<>(size);
+        int[] parents = new int[size];
+        int[] subtreeEnd = new int[size];
+        List<int[]> paths = new ArrayList<>(size);
+        Map<UUID, Integer> byId = new HashMap<>(size * 2);
+        Map<String, Integer> bySlug = new HashMap<>(size * 2);
+        int[] roots = new int[rootRows.size()];
+
+        // Iterative pre-order walk; an open node's subtree ends when a node that is not its child is reached
+        Deque<Integer> open = new ArrayDeque<>();
+        for (int r = 0; r < rootRows.size(); r++) {
+            roots[r] = ordered.size();
+            Deque<CategoryRow> pending = new ArrayDeque<>();
+            pending.push(rootRows.get(r));
+            Deque<Integer> pendingParents = new ArrayDeque<>();
+            pendingParents.push(-1);
+            while (!pending.isEmpty()) {
+                CategoryRow row = pending.pop();
+                int parent = pendingParents.pop();
+                while (!open.isEmpty() && open.peek() != parent) {
+                    subtreeEnd[open.pop()] = ordered.size();
+                }
+                int index = ordered.size();
+                int depth = parent < 0 ? 0 : ordered.get(parent).depth() + 1;
+                String fullPath = parent < 0 ? row.name() : ordered.get(parent).fullPath() + " > " + row.name();
+                ordered.add(new Node(row.id(), parent < 0 ? null : ordered.get(parent).id(), row.name(), row.slug(),
+                        row.description(), row.imageUrl(), row.displayOrder() != null ? row.displayOrder() : 0,
+                        Boolean.TRUE.equals(row.active()), depth, fullPath));
+                parents[index] = parent;
+                int[] path = parent < 0 ? new int[]{index} : Arrays.copyOf(paths.get(parent), depth + 1);
+                path[depth] = index;
+                paths.add(path);
+                byId.put(row.id(), index);
+                bySlug.put(row.slug(), index);
+                open.push(index);
+
+                List<CategoryRow> kids = childRows.getOrDefault(row.id(), List.of());
+                for (int k = kids.size() - 1; k >= 0; k--) {
+                    pending.push(kids.get(k));
+                    pendingParents.push(index);
+                }
+            }
+            while (!open.isEmpty()) {
+                subtreeEnd[open.pop()] = ordered.size();
+            }
+        }
+
+        int count = ordered.size();
+        Node[] nodes = ordered.toArray(new Node[0]);
+        int[][] children = new int[count][];
+        int[] childCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (parents[i] >= 0) {
+                childCounts[parents[i]]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            children[i] = new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        // Pre-order visits siblings in display order, so appending keeps them sorted
+        for (int i = 0; i < count; i++) {
+            if (parents[i] >= 0) {
+                children[parents[i]][childCounts[parents[i]]++] = i;
+            }
+        }
+        List<Set<UUID>> descendants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID[] subtree = new UUID[subtreeEnd[i] - i];
+            for (int j = i; j < subtreeEnd[i]; j++) {
+                subtree[j - i] = nodes[j].id();
+            }
+            descendants.add(Set.of(subtree));
+        }
+        List<Node> active = ordered.stream()
+                .filter(Node::active)
+                .sorted(Comparator.comparingInt(Node::displayOrder).thenComparing(Node::name,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        return new CategoryTree(version, nodes, Arrays.copyOf(parents, count), children, roots,
+                paths.toArray(new int[0][]), descendants, active, Map.copyOf(byId), Map.copyOf(bySlug));
+    }
+
+    public static CategoryTree empty() {
+        return build(0, List.of());
+    }
+
+    /**
+     * Build sequence number; increases with every rebuild.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public Node get(UUID id) {
+        Integer index = byId.get(id);
+        return index != null ? nodes[index] : null;
+    }
+
+    public Node getBySlug(String slug) {
+        Integer index = bySlug.get(slug);
+        return index != null ? nodes[index] : null;
+    }
+
+    /**
+     * Active root categories in display order.
+     */
+    public List<Node> activeRoots() {
+        List<Node> result = new ArrayList<>(roots.length);
+        for (int root : roots) {
+            if (nodes[root].active()) {
+                result.add(nodes[root]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Active direct children in display order; empty for unknown ids.
+     */
+    public List<Node> activeChildren(UUID id) {
+        Integer index = byId.get(id);
+        if (index == null) {
+            return List.of();
+        }
+        List<Node> result = new ArrayList<>(children[index].length);
+        for (int child : children[index]) {
+            if (nodes[child].active()) {
+                result.add(nodes[child]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every active category ordered by display order across the whole tree.
+     */
+    public List<Node> activeByDisplayOrder() {
+        return activeByDisplayOrder;
+    }
+
+    public Node parent(UUID id) {
+        Integer index = byId.get(id);
+        return index != null && parents[index] >= 0 ? nodes[parents[index]] : null;
+    }
+
+    /**
+     * The category and its ancestors from the root down; empty for unknown ids.
+     */
+    public List<Node> breadcrumb(UUID id) {
+        Integer index = byId.get(id);
+        if (index == null) {
+            return List.of();
+        }
+        int[] path = paths[index];
+        List<Node> result = new ArrayList<>(path.length);
+        for (int step : path) {
+            result.add(nodes[step]);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the category and every category below it, active or not; empty for unknown ids.
+     */
+    public Set<UUID> descendantIds(UUID id) {
+        Integer index = byId.get(id);
+        return index != null ? descendants.get(index) : Set.of();
+    }
+}
@@ -0,0 +1,145 @@
+package com.iloveshopping.catalog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates product views in memory and writes them to {@code products.view_count} in batches.
+ *
+ * A view only increments a striped {@link LongAdder} for the product, so concurrent requests for
+ * the same product never contend on its row. A scheduled flusher drains every adder and applies
+ * the totals as one JDBC batch of {@code view_count = view_count + n} updates; a failed batch is
+ * added back and retried on the next flush. Views since the last successful flush are lost if the
+ * process dies, which {@code product.views.loss.window} reports in seconds.
+ */
+@Slf4j
+@Component
+public class ProductViewCounter {
+
+    private static final String INCREMENT_VIEWS = "UPDATE products SET view_count = view_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Counter flushed;
+    private final Counter failed;
+    private final Timer flushTimer;
+    private volatile long lastFlushedAt = System.nanoTime();
+
+    public ProductViewCounter(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.catalog.view-counts.flush-interval:PT10S}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushed = meterRegistry.counter("product.views.flushed", "outcome", "written");
+        this.failed = meterRegistry.counter("product.views.flushed", "outcome", "failed");
+        this.flushTimer = meterRegistry.timer("product.views.flush");
+        Gauge.builder("product.views.pending", this, ProductViewCounter::pendingViews)
+                .description("Views counted in memory but not yet written")
+                .register(meterRegistry);
+        Gauge.builder("product.views.pending.products", pending, Map::size)
+                .description("Products with views tracked in memory")
+                .register(meterRegistry);
+        Gauge.builder("product.views.flush.interval", flushInterval, interval -> interval.toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("product.views.loss.window", this, ProductViewCounter::lossWindowSeconds)
+                .description("Age of the oldest unwritten views, i.e. what a crash would lose")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count one view of the product; never touches the database.
+     */
+    public void record(UUID productId) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Views counted but not yet written.
+     */
+    public long pendingViews() {
+        long total = 0;
+        for (LongAdder views : pending.values()) {
+            total += views.sum();
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.view-counts.flush-interval:PT10S}")
+    public void flush() {
+        flushTimer.record(this::drain);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void drain() {
+        List<ViewDelta> batch = new ArrayList<>();
+        Iterator<Map.Entry<UUID, LongAdder>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<UUID, LongAdder> entry = entries.next();
+            long views = entry.getValue().sumThenReset();
+            if (views > 0) {
+                batch.add(new ViewDelta(entry.getKey(), views));
+            } else {
+                // Idle since the last flush; a view racing the removal is carried over below
+                entries.remove();
+                long late = entry.getValue().sumThenReset();
+                if (late > 0) {
+                    batch.add(new ViewDelta(entry.getKey(), late));
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            lastFlushedAt = System.nanoTime();
+            return;
+        }
+
+        // Sorted ids keep flushers on several nodes from locking the same rows in different orders
+        batch.sort((a, b) -> a.productId().compareTo(b.productId()));
+        try {
+            jdbcTemplate.batchUpdate(INCREMENT_VIEWS, batch, batch.size(), (ps, delta) -> {
+                ps.setLong(1, delta.views());
+                ps.setObject(2, delta.productId());
+            });
+            flushed.increment(views(batch));
+            lastFlushedAt = System.nanoTime();
+        } catch (Exception e) {
+            failed.increment(views(batch));
+            log.error("Failed to write view counts for {} products, retrying on the next flush", batch.size(), e);
+            for (ViewDelta delta : batch) {
+                pending.computeIfAbsent(delta.productId(), id -> new LongAdder()).add(delta.views());
+            }
+        }
+    }
+
+    private static long views(List<ViewDelta> batch) {
+        return batch.stream().mapToLong(ViewDelta::views).sum();
+    }
+
+    private double lossWindowSeconds() {
+        return pendingViews() == 0 ? 0 : (System.nanoTime() - lastFlushedAt) / 1_000_000_000.0;
+    }
+
+    private record ViewDelta(UUID productId, long views) {}
+}
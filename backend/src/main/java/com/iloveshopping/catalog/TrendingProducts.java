@@ -0,0 +1,251 @@
+package com.iloveshopping.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductSoldEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Products with the most recent activity, overall and per category.
+ *
+ * Views and sales only add weight to an in-memory buffer. A scheduled refresh folds the buffer
+ * into one {@link TrendingSketch} for the whole catalog and one per category on the product's
+ * breadcrumb, then publishes each sketch as an immutable ranked id list, so reading the top k is
+ * a sublist of a published list. Scores decay exponentially with the configured half-life using
+ * forward decay: new weight is scaled up by {@code exp(lambda * (now - landmark))} instead of
+ * scaling every stored score down, and the landmark moves forward before the factor overflows.
+ *
+ * The sketches are snapshotted to Redis periodically and on shutdown, each node under a key of
+ * its own, and a starting node restores from all of them so trending lists survive restarts.
+ * Nodes see different shares of the traffic, so snapshots are merged by keeping the highest
+ * score of each product rather than the sum: a restored score that is snapshotted again is not
+ * counted twice on the next restore.
+ */
+@Slf4j
+@Component
+public class TrendingProducts {
+
+    static final String SNAPSHOT_KEY_PREFIX = "catalog:trending:snapshot:";
+
+    private static final UUID ALL = new UUID(0, 0);
+    private static final double MAX_EXPONENT = 32;
+
+    private final CategoryIndex categoryIndex;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final double lambda;
+    private final Duration halfLife;
+    private final int capacity;
+    private final double saleWeight;
+
+    private final Map<UUID, Activity> pending = new ConcurrentHashMap<>();
+    private final Set<UUID> removed = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, TrendingSketch> sketches = new HashMap<>();
+    private final String snapshotKey = SNAPSHOT_KEY_PREFIX + UUID.randomUUID();
+    private long landmarkMillis = System.currentTimeMillis();
+    private volatile Map<UUID, List<UUID>> published = Map.of();
+
+    public TrendingProducts(
+            CategoryIndex categoryIndex,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.catalog.trending.half-life:PT6H}") Duration halfLife,
+            @Value("${app.catalog.trending.capacity:200}") int capacity,
+            @Value("${app.catalog.trending.sale-weight:10}") double saleWeight) {
+        this.categoryIndex = categoryIndex;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.halfLife = halfLife;
+        this.lambda = Math.log(2) / halfLife.toMillis();
+        this.capacity = capacity;
+        this.saleWeight = saleWeight;
+    }
+
+    /**
+     * Up to {@code limit} product ids with the highest decayed activity, optionally limited to a
+     * category and its subcategories. Reflects activity up to the last refresh.
+     */
+    public List<UUID> top(UUID categoryId, int limit) {
+        List<UUID> ranked = published.getOrDefault(categoryId != null ? categoryId : ALL, List.of());
+        return ranked.subList(0, Math.min(Math.max(limit, 0), ranked.size()));
+    }
+
+    public void recordView(UUID productId, UUID categoryId) {
+        record(productId, categoryId, 1);
+    }
+
+    @EventListener
+    public void onProductSold(ProductSoldEvent event) {
+        record(event.productId(), event.categoryId(), saleWeight * event.quantity());
+    }
+
+    /**
+     * Deactivated, deleted and recategorized products leave every list; a moved product starts
+     * trending again from its new category.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.before() == null) {
+            return;
+        }
+        boolean moved = event.after() != null && event.before().categoryId() != null
+                && !event.before().categoryId().equals(event.after().categoryId());
+        if (event.after() == null || !event.after().active() || moved) {
+            removed.add(event.productId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.trending.refresh-interval:PT10S}")
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        if (lambda * (now - landmarkMillis) > MAX_EXPONENT) {
+            double factor = Math.exp(-lambda * (now - landmarkMillis));
+            sketches.values().forEach(sketch -> sketch.rescale(factor));
+            landmarkMillis = now;
+        }
+        double scale = Math.exp(lambda * (now - landmarkMillis));
+
+        boolean changed = !removed.isEmpty();
+        for (Iterator<UUID> ids = removed.iterator(); ids.hasNext(); ) {
+            UUID productId = ids.next();
+            ids.remove();
+            sketches.values().forEach(sketch -> sketch.remove(productId));
+        }
+
+        CategoryTree tree = categoryIndex.tree();
+        Iterator<Map.Entry<UUID, Activity>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<UUID, Activity> entry = entries.next();
+            Activity activity = entry.getValue();
+            double weight = activity.weight.sumThenReset();
+            if (weight == 0) {
+                // Idle since the last refresh; activity racing the removal is carried over
+                entries.remove();
+                weight = activity.weight.sumThenReset();
+                if (weight == 0) {
+                    continue;
+                }
+            }
+            changed = true;
+            add(ALL, entry.getKey(), weight * scale);
+            if (activity.categoryId != null) {
+                for (CategoryTree.Node node : tree.breadcrumb(activity.categoryId)) {
+                    add(node.id(), entry.getKey(), weight * scale);
+                }
+            }
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        restore();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.trending.snapshot-interval:PT1M}",
+            initialDelayString = "${app.catalog.trending.snapshot-interval:PT1M}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresh();
+        snapshot();
+    }
+
+    synchronized void snapshot() {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Double>> scores = new HashMap<>();
+        sketches.forEach((categoryId, sketch) -> {
+            Map<String, Double> ranked = new HashMap<>();
+            sketch.ranked().forEach(entry -> ranked.put(entry.productId().toString(), entry.score()));
+            scores.put(categoryId.toString(), ranked);
+        });
+        try {
+            String json = objectMapper.writeValueAsString(new Snapshot(landmarkMillis, scores));
+            // Older snapshots are worth little once their scores have decayed by several half-lives
+            redisTemplate.opsForValue().set(snapshotKey, json, halfLife.multipliedBy(4));
+        } catch (Exception e) {
+            log.warn("Failed to snapshot trending products: {}", e.getMessage());
+        }
+    }
+
+    synchronized void restore() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        try (Cursor<String> keys = redisTemplate.scan(
+                ScanOptions.scanOptions().match(SNAPSHOT_KEY_PREFIX + "*").count(100).build())) {
+            while (keys.hasNext()) {
+                String json = redisTemplate.opsForValue().get(keys.next());
+                if (json != null) {
+                    snapshots.add(objectMapper.readValue(json, Snapshot.class));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to restore trending products: {}", e.getMessage());
+            return;
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        Map<UUID, Map<UUID, Double>> merged = new HashMap<>();
+        for (Snapshot snapshot : snapshots) {
+            double factor = Math.exp(lambda * (snapshot.landmarkMillis() - landmarkMillis));
+            snapshot.scores().forEach((categoryId, ranked) -> ranked.forEach((productId, score) ->
+                    merged.computeIfAbsent(UUID.fromString(categoryId), id -> new HashMap<>())
+                            .merge(UUID.fromString(productId), score * factor, Math::max)));
+        }
+        merged.forEach((categoryId, ranked) -> ranked.forEach((productId, score) -> add(categoryId, productId, score)));
+        publish();
+        log.info("Restored trending products for {} categories from {} snapshots", merged.size(), snapshots.size());
+    }
+
+    private void record(UUID productId, UUID categoryId, double weight) {
+        Activity activity = pending.computeIfAbsent(productId, id -> new Activity());
+        activity.categoryId = categoryId;
+        activity.weight.add(weight);
+    }
+
+    private void add(UUID categoryId, UUID productId, double weight) {
+        sketches.computeIfAbsent(categoryId, id -> new TrendingSketch(capacity)).add(productId, weight);
+    }
+
+    private void publish() {
+        sketches.values().removeIf(TrendingSketch::isEmpty);
+        Map<UUID, List<UUID>> lists = new HashMap<>(sketches.size() * 2);
+        sketches.forEach((categoryId, sketch) -> lists.put(categoryId,
+                sketch.ranked().stream().map(TrendingSketch.Ranked::productId).toList()));
+        published = lists;
+    }
+
+    private static final class Activity {
+        private final DoubleAdder weight = new DoubleAdder();
+        private volatile UUID categoryId;
+    }
+
+    record Snapshot(long landmarkMillis, Map<String, Map<String, Double>> scores) {}
+}
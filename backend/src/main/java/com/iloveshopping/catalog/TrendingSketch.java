@@ -0,0 +1,81 @@
+package com.iloveshopping.catalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Space-Saving top-k sketch over weighted product activity.
+ *
+ * At most {@code capacity} products are tracked. A product arriving when the sketch is full
+ * takes over the slot with the lowest score and inherits that score as its error bound, so a
+ * product whose true weight exceeds the smallest tracked score is always retained. Not thread-safe.
+ */
+final class TrendingSketch {
+
+    record Ranked(UUID productId, double score, double error) {}
+
+    private static final Comparator<Ranked> BY_SCORE =
+            Comparator.comparingDouble(Ranked::score).reversed().thenComparing(Ranked::productId);
+
+    private final int capacity;
+    private final Map<UUID, double[]> slots;
+
+    TrendingSketch(int capacity) {
+        this.capacity = capacity;
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    void add(UUID productId, double weight) {
+        double[] slot = slots.get(productId);
+        if (slot != null) {
+            slot[0] += weight;
+            return;
+        }
+        if (slots.size() < capacity) {
+            slots.put(productId, new double[] {weight, 0});
+            return;
+        }
+        UUID evicted = null;
+        double floor = Double.MAX_VALUE;
+        for (Map.Entry<UUID, double[]> entry : slots.entrySet()) {
+            if (entry.getValue()[0] < floor) {
+                floor = entry.getValue()[0];
+                evicted = entry.getKey();
+            }
+        }
+        slots.remove(evicted);
+        slots.put(productId, new double[] {floor + weight, floor});
+    }
+
+    void remove(UUID productId) {
+        slots.remove(productId);
+    }
+
+    /**
+     * Multiply every score, used when the decay landmark moves forward.
+     */
+    void rescale(double factor) {
+        for (double[] slot : slots.values()) {
+            slot[0] *= factor;
+            slot[1] *= factor;
+        }
+    }
+
+    boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * Tracked products, highest score first.
+     */
+    List<Ranked> ranked() {
+        List<Ranked> result = new ArrayList<>(slots.size());
+        slots.forEach((productId, slot) -> result.add(new Ranked(productId, slot[0], slot[1])));
+        result.sort(BY_SCORE);
+        return result;
+    }
+}
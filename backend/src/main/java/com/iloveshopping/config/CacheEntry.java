@@ -0,0 +1,8 @@
+package com.iloveshopping.config;
+
+/**
+ * A cached value with what early refresh needs: how long it took to compute and when it expires.
+ * {@code computeMillis} is 0 for values stored without going through a loader.
+ */
+public record CacheEntry(Object value, long computeMillis, long expiresAtMillis) {
+}
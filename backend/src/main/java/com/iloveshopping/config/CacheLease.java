@@ -0,0 +1,60 @@
+package com.iloveshopping.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short Redis lease that lets one node at a time recompute a cache entry.
+ *
+ * A lease is a {@code SET NX PX} key holding a random token and is only released by its holder.
+ * If Redis cannot be reached every caller is granted the lease, so a Redis outage degrades to
+ * per-node single-flight instead of blocking loads.
+ */
+@Slf4j
+public class CacheLease {
+
+    static final String NOT_HELD = "";
+
+    private static final RedisScript<Long> RELEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public CacheLease(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * The token of a newly acquired lease, {@link #NOT_HELD} when granted without Redis, or null
+     * when another node holds it.
+     */
+    public String tryAcquire(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl)) ? token : null;
+        } catch (Exception e) {
+            log.debug("Cache lease unavailable for {}: {}", key, e.getMessage());
+            return NOT_HELD;
+        }
+    }
+
+    public void release(String key, String token) {
+        if (token == null || token.equals(NOT_HELD)) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE, List.of(key), token);
+        } catch (Exception e) {
+            // The lease expires on its own
+            log.debug("Failed to release cache lease {}: {}", key, e.getMessage());
+        }
+    }
+}
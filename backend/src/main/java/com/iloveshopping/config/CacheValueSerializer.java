@@ -0,0 +1,137 @@
+package com.iloveshopping.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Serializes Redis cache values as Smile, Jackson's binary JSON, behind a one-byte format tag.
+ *
+ * Values at or above the compression threshold are LZ4-compressed when that makes them smaller.
+ * Values without a known tag are read as the plain JSON written by
+ * {@link GenericJackson2JsonRedisSerializer}, and the {@code json} format keeps writing it, so a
+ * cluster can be rolled to new code on {@code json} first and switched to {@code smile} once
+ * every node reads both. A later format takes the next tag value.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    static final byte SMILE = 1;
+    static final byte SMILE_LZ4 = 2;
+
+    public enum Format {
+        JSON, SMILE;
+
+        public static Format from(String value) {
+            return value == null || value.isBlank() ? SMILE : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Format format;
+    private final int compressionThreshold;
+    private final ObjectMapper smileMapper;
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    /**
+     * @param compressionThreshold encoded size in bytes from which values are compressed; 0 disables compression
+     */
+    public CacheValueSerializer(Format format, int compressionThreshold) {
+        this.format = format;
+        this.compressionThreshold = compressionThreshold;
+        this.smileMapper = smileMapper();
+    }
+
+    /**
+     * Carries {@code @class} hints like the JSON format so values are read back as their own types;
+     * only application and JDK value types are accepted.
+     */
+    private static ObjectMapper smileMapper() {
+        ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.iloveshopping.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.time.")
+                        .allowIfSubType("java.math.")
+                        .allowIfSubType("java.lang.")
+                        .allowIfSubType("org.springframework.data.domain.")
+                        .build(),
+                ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        return mapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (format == Format.JSON) {
+            return json.serialize(value);
+        }
+        byte[] encoded;
+        try {
+            encoded = smileMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new SerializationException("Could not write cache value as Smile", e);
+        }
+        if (compressionThreshold > 0 && encoded.length >= compressionThreshold) {
+            byte[] compressed = compress(encoded);
+            if (compressed.length < encoded.length + 1) {
+                return compressed;
+            }
+        }
+        byte[] result = new byte[encoded.length + 1];
+        result[0] = SMILE;
+        System.arraycopy(encoded, 0, result, 1, encoded.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return switch (bytes[0]) {
+                case SMILE -> smileMapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+                case SMILE_LZ4 -> smileMapper.readValue(decompress(bytes), Object.class);
+                default -> json.deserialize(bytes);
+            };
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read cache value in format " + bytes[0], e);
+        }
+    }
+
+    /**
+     * Layout: tag, original length as a big-endian int, LZ4 block.
+     */
+    private byte[] compress(byte[] encoded) {
+        byte[] buffer = new byte[5 + compressor.maxCompressedLength(encoded.length)];
+        int length = compressor.compress(encoded, 0, encoded.length, buffer, 5);
+        ByteBuffer.wrap(buffer).put(SMILE_LZ4).putInt(encoded.length);
+        byte[] result = new byte[5 + length];
+        System.arraycopy(buffer, 0, result, 0, result.length);
+        return result;
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        int originalLength = ByteBuffer.wrap(bytes, 1, 4).getInt();
+        return decompressor.decompress(bytes, 5, originalLength);
+    }
+}
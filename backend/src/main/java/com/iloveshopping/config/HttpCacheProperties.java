@@ -0,0 +1,25 @@
+package com.iloveshopping.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP caching of catalog responses, bound from {@code app.http.cache}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.http.cache")
+public class HttpCacheProperties {
+
+    /**
+     * When off, no validators are issued or checked and no Cache-Control is added.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Cache-Control value per endpoint name used in {@link HttpCached}; endpoints without an entry get none.
+     */
+    private Map<String, String> cacheControl = new HashMap<>();
+}
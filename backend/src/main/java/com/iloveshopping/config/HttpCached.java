@@ -0,0 +1,31 @@
+package com.iloveshopping.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a catalog endpoint that browsers and proxies may cache, with the Cache-Control configured
+ * under {@code app.http.cache.cache-control.<value>}. On a controller it applies to every handler
+ * method without its own annotation.
+ *
+ * @see HttpCaching
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface HttpCached {
+
+    /**
+     * Endpoint name the Cache-Control value is configured under.
+     */
+    String value();
+
+    /**
+     * Validate against the catalog version before the handler runs. Off for endpoints that
+     * validate themselves or whose data changes independently of the catalog.
+     */
+    boolean catalogVersion() default true;
+}
@@ -0,0 +1,122 @@
+package com.iloveshopping.config;
+
+import com.iloveshopping.catalog.CatalogVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Method;
+
+/**
+ * Conditional GETs and Cache-Control for {@link HttpCached} endpoints.
+ *
+ * <ul>
+ *   <li>As an interceptor, it answers {@code 304 Not Modified} for endpoints validated against
+ *       the {@link CatalogVersion} before the handler runs, so nothing is queried or serialized.</li>
+ *   <li>Handlers with their own validators call {@link #checkNotModified} and return null when it
+ *       answered; product detail does this against a digest of its content.</li>
+ *   <li>As a body advice, it adds the endpoint's Cache-Control to successful responses only, so
+ *       errors raised by the handler are never cached.</li>
+ * </ul>
+ */
+@ControllerAdvice
+public class HttpCaching implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private final HttpCacheProperties properties;
+    private final CatalogVersion catalogVersion;
+
+    public HttpCaching(HttpCacheProperties properties, CatalogVersion catalogVersion) {
+        this.properties = properties;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Whether conditional GETs are answered at all.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Check the request against the current validators and answer {@code 304} with the endpoint's
+     * Cache-Control when they match; otherwise the validators are set on the response.
+     *
+     * @param lastModifiedMillis last modification, or -1 to validate by ETag only
+     * @return true when the handler must return without a body
+     */
+    public boolean checkNotModified(WebRequest request, String endpoint, String etag, long lastModifiedMillis) {
+        if (!properties.isEnabled() || !request.checkNotModified(etag, lastModifiedMillis)) {
+            return false;
+        }
+        HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+        String cacheControl = cacheControl(endpoint);
+        if (response != null && cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !isCacheable(request.getMethod())) {
+            return true;
+        }
+        HttpCached cached = cached(handlerMethod.getMethod(), handlerMethod.getBeanType());
+        if (cached == null || !cached.catalogVersion()) {
+            return true;
+        }
+        String etag = catalogVersion.etag();
+        return etag == null || !checkNotModified(new ServletWebRequest(request, response), cached.value(), etag, -1);
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.getMethod() != null && cached(returnType.getMethod(), returnType.getContainingClass()) != null;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpCached cached = cached(returnType.getMethod(), returnType.getContainingClass());
+        String cacheControl = cached != null ? cacheControl(cached.value()) : null;
+        if (cacheControl != null && isCacheable(request.getMethod().name())
+                && response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().getStatus() < 300) {
+            response.getHeaders().set(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return body;
+    }
+
+    private String cacheControl(String endpoint) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String value = properties.getCacheControl().get(endpoint);
+        return value != null && !value.isBlank() ? value : null;
+    }
+
+    private static boolean isCacheable(String method) {
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    private static HttpCached cached(Method method, Class<?> type) {
+        HttpCached cached = AnnotatedElementUtils.findMergedAnnotation(method, HttpCached.class);
+        return cached != null ? cached : AnnotatedElementUtils.findMergedAnnotation(type, HttpCached.class);
+    }
+}
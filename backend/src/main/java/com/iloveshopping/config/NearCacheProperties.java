@@ -0,0 +1,38 @@
+package com.iloveshopping.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local near-caches kept in front of the Redis caches, bound from {@code app.cache.near}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.near")
+public class NearCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Limits for caches without an entry in {@code caches}.
+     */
+    private Spec defaults = new Spec();
+
+    /**
+     * Per cache name overrides.
+     */
+    private Map<String, Spec> caches = new HashMap<>();
+
+    public Spec spec(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class Spec {
+        private long maxEntries = 1000;
+        private Duration ttl = Duration.ofMinutes(1);
+    }
+}
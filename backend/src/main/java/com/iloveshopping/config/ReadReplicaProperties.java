@@ -0,0 +1,38 @@
+package com.iloveshopping.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas that serve read-only transactions, bound from {@code app.datasource}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReadReplicaProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * How long a user's reads stay on the primary after one of their own writes commits.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /**
+     * A replica lagging further behind than this is taken out of rotation until it catches up.
+     */
+    private Duration maxReplicationLag = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+        private String url;
+        /** Defaults to the primary's username. */
+        private String username;
+        /** Defaults to the primary's password. */
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -1,44 +1,131 @@
 package com.iloveshopping.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Map;
 
 /**
- * Redis configuration with JSON serialization for caching.
+ * Redis configuration for caching. Cache values are written by {@link CacheValueSerializer};
+ * the general purpose template keeps JSON.
+ *
+ * Unless {@code app.cache.near.enabled} is false, the application cache manager keeps a local
+ * near-cache in front of each Redis cache and keeps the near-caches of all nodes in step over
+ * Redis pub/sub. Loads through {@code @Cacheable(sync = true)} are protected against stampedes.
+ * A value that cannot be read or written is logged and treated as a miss, so a cache problem
+ * never fails the request.
  */
+@Slf4j
 @Configuration
 @EnableCaching
-public class RedisConfig {
+@EnableConfigurationProperties(NearCacheProperties.class)
+public class RedisConfig implements CachingConfigurer {
+
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+    private static final Map<String, Duration> TTLS = Map.of(
+            "categories", Duration.ofHours(24),
+            "products", Duration.ofMinutes(30),
+            "brands", Duration.ofHours(24));
+
+    /**
+     * The cache manager behind Spring's cache annotations: stampede protection over the
+     * near-cache when it is enabled, otherwise directly over Redis.
+     */
+    @Bean
+    @Primary
+    public CacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                     ObjectProvider<TwoTierCacheManager> nearCacheManager,
+                                     StringRedisTemplate redisTemplate,
+                                     @Value("${app.cache.stampede.lease-ttl:PT10S}") Duration leaseTtl,
+                                     @Value("${app.cache.stampede.lease-wait:PT2S}") Duration leaseWait,
+                                     @Value("${app.cache.stampede.beta:1.0}") double beta) {
+        TwoTierCacheManager near = nearCacheManager.getIfAvailable();
+        CacheManager delegate = near != null ? near : redisCacheManager;
+        return new StampedeProtectedCacheManager(delegate, new CacheLease(redisTemplate, leaseTtl),
+                name -> TTLS.getOrDefault(name, DEFAULT_TTL), leaseWait, beta);
+    }
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new SimpleCacheErrorHandler() {
+            @Override
+            public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+                log.warn("Failed to read {} from cache {}, loading it instead: {}",
+                        key, cache.getName(), exception.getMessage());
+            }
+
+            @Override
+            public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+                log.warn("Failed to write {} to cache {}: {}", key, cache.getName(), exception.getMessage());
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cache.near", name = "enabled", matchIfMissing = true)
+    public TwoTierCacheManager nearCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                                                MeterRegistry meterRegistry, NearCacheProperties properties) {
+        return new TwoTierCacheManager(redisCacheManager, redisTemplate, meterRegistry, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cache.near", name = "enabled", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager nearCacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) ->
+                        nearCacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TwoTierCacheManager.CHANNEL));
+        return container;
+    }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(
+            RedisConnectionFactory connectionFactory,
+            @Value("${app.cache.serialization.format:smile}") String format,
+            @Value("${app.cache.serialization.compression-threshold:1024}") int compressionThreshold) {
+        CacheValueSerializer valueSerializer =
+                new CacheValueSerializer(CacheValueSerializer.Format.from(format), compressionThreshold);
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))
+                .entryTtl(DEFAULT_TTL)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                        RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
-                .withCacheConfiguration("categories", 
-                        config.entryTtl(Duration.ofHours(24)))
-                .withCacheConfiguration("products", 
-                        config.entryTtl(Duration.ofMinutes(30)))
-                .withCacheConfiguration("brands", 
-                        config.entryTtl(Duration.ofHours(24)))
-                .build();
+                .enableStatistics();
+        TTLS.forEach((name, ttl) -> builder.withCacheConfiguration(name, config.entryTtl(ttl)));
+        return builder.build();
     }
 
     @Bean
@@ -0,0 +1,166 @@
+package com.iloveshopping.config;
+
+import com.iloveshopping.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to a healthy replica and everything else to the primary.
+ *
+ * Replicas are used round-robin among those that passed the last health check, which requires
+ * a valid connection and replication lag within the configured bound; with none healthy, reads
+ * fall back to the primary. After a signed-in user's write transaction commits, that user's
+ * reads stay on the primary for the read-your-writes window so they never see a replica that
+ * has not replayed their change yet.
+ *
+ * Must sit behind a {@code LazyConnectionDataSourceProxy}: the read-only flag of the transaction
+ * is only known once the transaction has started, not when the connection handle is requested.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    // A replica that has replayed everything it received is current however old its last replayed commit is
+    private static final String REPLICATION_LAG = """
+            SELECT COALESCE(CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                                 ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END, 0)
+            """;
+
+    private final List<String> replicaKeys;
+    private final Map<String, DataSource> replicas;
+    private final Map<String, Boolean> healthy = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long readYourWritesNanos;
+    private final double maxLagSeconds;
+    private volatile List<String> rotation = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaPools, ReadReplicaProperties properties) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        Map<String, DataSource> pools = new HashMap<>();
+        for (int i = 0; i < replicaPools.size(); i++) {
+            String key = "replica-" + i;
+            pools.put(key, replicaPools.get(i));
+            targets.put(key, replicaPools.get(i));
+        }
+        this.replicas = Map.copyOf(pools);
+        this.replicaKeys = pools.keySet().stream().sorted().toList();
+        this.readYourWritesNanos = properties.getReadYourWritesWindow().toNanos();
+        this.maxLagSeconds = properties.getMaxReplicationLag().toMillis() / 1000.0;
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        UUID userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriter(userId);
+            return PRIMARY;
+        }
+        if (userId != null && wroteRecently(userId)) {
+            return PRIMARY;
+        }
+        List<String> candidates = rotation;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * Replicas currently receiving reads.
+     */
+    public List<String> healthyReplicas() {
+        return rotation;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (String key : replicaKeys) {
+            boolean up = isHealthy(replicas.get(key));
+            Boolean previous = healthy.put(key, up);
+            if (previous == null || previous != up) {
+                log.info("Read replica {} is {}", key, up ? "in rotation" : "out of rotation");
+            }
+        }
+        rotation = replicaKeys.stream().filter(key -> healthy.getOrDefault(key, false)).toList();
+        long now = System.nanoTime();
+        recentWriters.values().removeIf(at -> now - at > readYourWritesNanos);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private boolean isHealthy(DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet lag = statement.executeQuery(REPLICATION_LAG)) {
+                return lag.next() && lag.getDouble(1) <= maxLagSeconds;
+            }
+        } catch (Exception e) {
+            log.debug("Read replica health check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void rememberWriter(UUID userId) {
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, System.nanoTime());
+            }
+        });
+    }
+
+    private boolean wroteRecently(UUID userId) {
+        Long at = recentWriters.get(userId);
+        return at != null && System.nanoTime() - at <= readYourWritesNanos;
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
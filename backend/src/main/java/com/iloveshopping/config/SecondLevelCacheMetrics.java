@@ -0,0 +1,46 @@
+package com.iloveshopping.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+
+/**
+ * Publishes hit, miss and put counts of every Hibernate second-level cache region,
+ * tagged by cache, as {@code cache.gets} and {@code cache.puts}.
+ *
+ * The counts come from the JCache statistics Ehcache keeps for each cache, so Hibernate's own
+ * statistics, which are collected on every session, can stay off in production.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory jCacheRegionFactory)) {
+            log.warn("Second-level cache is not backed by JCache, its metrics are not published");
+            return;
+        }
+        CacheManager cacheManager = jCacheRegionFactory.getCacheManager();
+        for (String name : cacheManager.getCacheNames()) {
+            // Registers the statistics MBean the binder reads
+            cacheManager.enableStatistics(name, true);
+            JCacheMetrics.monitor(registry, cacheManager.getCache(name), Tags.empty());
+        }
+    }
+}
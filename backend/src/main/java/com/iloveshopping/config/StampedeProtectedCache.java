@@ -0,0 +1,247 @@
+package com.iloveshopping.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps an expiring or missing hot key from sending every request to the database at once.
+ *
+ * Applies to loads through {@link #get(Object, Callable)}, which is what
+ * {@code @Cacheable(sync = true)} uses:
+ * <ul>
+ *   <li>concurrent misses on this node wait for one loader per key;</li>
+ *   <li>the loader first takes a Redis lease, so other nodes wait for its result instead of
+ *       loading too, and only load themselves if it does not show up within the wait;</li>
+ *   <li>a hit refreshes early with probability growing as expiry nears, scaled by how long the
+ *       value took to compute (XFetch), while every other request keeps getting the current value.</li>
+ * </ul>
+ * Values are stored as {@link CacheEntry} so the compute time and expiry travel with them.
+ * Synchronized loads bypass Spring's {@code CacheErrorHandler}, so a stored value that cannot be
+ * read is treated as a miss here, and a value that cannot be stored is still returned.
+ */
+@Slf4j
+class StampedeProtectedCache implements Cache {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final Cache delegate;
+    private final CacheLease lease;
+    private final Duration ttl;
+    private final Duration leaseWait;
+    private final double beta;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    StampedeProtectedCache(Cache delegate, CacheLease lease, Duration ttl, Duration leaseWait, double beta) {
+        this.delegate = delegate;
+        this.lease = lease;
+        this.ttl = ttl;
+        this.leaseWait = leaseWait;
+        this.beta = beta;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null && wrapper.get() instanceof CacheEntry entry) {
+            return new SimpleValueWrapper(entry.value());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = read(key);
+        if (wrapper != null) {
+            Object stored = wrapper.get();
+            if (!(stored instanceof CacheEntry entry)) {
+                return (T) stored;
+            }
+            if (refreshEarly(entry)) {
+                Object refreshed = tryRefresh(key, valueLoader);
+                return (T) (refreshed != null ? refreshed : entry.value());
+            }
+            return (T) entry.value();
+        }
+        return (T) singleFlight(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value != null ? new CacheEntry(value, 0, System.currentTimeMillis() + ttl.toMillis()) : null);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    /**
+     * XFetch: refresh once {@code now - delta * beta * ln(rand)} passes the expiry, where delta is the compute time.
+     */
+    boolean refreshEarly(CacheEntry entry) {
+        if (entry.computeMillis() <= 0) {
+            return false;
+        }
+        double gap = -entry.computeMillis() * beta * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= entry.expiresAtMillis();
+    }
+
+    /**
+     * Recompute in the calling request unless this node or another one is already doing it; null when skipped.
+     */
+    private Object tryRefresh(Object key, Callable<?> valueLoader) {
+        String localKey = TwoTierCache.localKey(key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey, mine) != null) {
+            return null;
+        }
+        String leaseKey = leaseKey(localKey);
+        String token = lease.tryAcquire(leaseKey);
+        try {
+            if (token == null) {
+                mine.complete(null);
+                return null;
+            }
+            Object value = compute(key, valueLoader);
+            mine.complete(value);
+            return value;
+        } catch (ValueRetrievalException e) {
+            // The current value is still valid; a later hit tries again
+            mine.complete(null);
+            return null;
+        } finally {
+            inFlight.remove(localKey, mine);
+            lease.release(leaseKey, token);
+        }
+    }
+
+    private Object singleFlight(Object key, Callable<?> valueLoader) {
+        String localKey = TwoTierCache.localKey(key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(localKey, mine);
+        if (running != null) {
+            try {
+                Object value = running.join();
+                if (value != null) {
+                    return value;
+                }
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            // The other flight was an early refresh that skipped; load normally
+            return get(key, valueLoader);
+        }
+        try {
+            Object value = loadWithLease(key, localKey, valueLoader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, mine);
+        }
+    }
+
+    private Object loadWithLease(Object key, String localKey, Callable<?> valueLoader) {
+        String leaseKey = leaseKey(localKey);
+        String token = lease.tryAcquire(leaseKey);
+        if (token == null) {
+            Object loadedElsewhere = awaitOtherNode(key);
+            if (loadedElsewhere != null) {
+                return loadedElsewhere;
+            }
+        }
+        try {
+            return compute(key, valueLoader);
+        } finally {
+            lease.release(leaseKey, token);
+        }
+    }
+
+    private Object awaitOtherNode(Object key) {
+        long deadline = System.nanoTime() + leaseWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            ValueWrapper wrapper = read(key);
+            Object stored = wrapper != null ? wrapper.get() : null;
+            if (stored != null) {
+                return stored instanceof CacheEntry entry ? entry.value() : stored;
+            }
+        }
+        return null;
+    }
+
+    private Object compute(Object key, Callable<?> valueLoader) {
+        long started = System.currentTimeMillis();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long finished = System.currentTimeMillis();
+        if (value != null) {
+            try {
+                delegate.put(key, new CacheEntry(value, Math.max(1, finished - started), finished + ttl.toMillis()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} to cache {}: {}", key, getName(), e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    private ValueWrapper read(Object key) {
+        try {
+            return delegate.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read {} from cache {}, loading it instead: {}", key, getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String leaseKey(String localKey) {
+        return "cache:lease:" + getName() + ":" + localKey;
+    }
+}
@@ -0,0 +1,47 @@
+package com.iloveshopping.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Wraps every cache of the delegate manager in a {@link StampedeProtectedCache}.
+ */
+public class StampedeProtectedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheLease lease;
+    private final Function<String, Duration> ttls;
+    private final Duration leaseWait;
+    private final double beta;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public StampedeProtectedCacheManager(CacheManager delegate, CacheLease lease, Function<String, Duration> ttls,
+                                         Duration leaseWait, double beta) {
+        this.delegate = delegate;
+        this.lease = lease;
+        this.ttls = ttls;
+        this.leaseWait = leaseWait;
+        this.beta = beta;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache cache = delegate.getCache(cacheName);
+            return cache != null
+                    ? new StampedeProtectedCache(cache, lease, ttls.apply(cacheName), leaseWait, beta)
+                    : null;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
@@ -0,0 +1,99 @@
+package com.iloveshopping.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps every Redis cache in a {@link TwoTierCache} with a bounded local Caffeine tier.
+ *
+ * Changes are published on {@link #CHANNEL} as {@code node \n cache \n key} (key omitted for a
+ * clear); every other node drops its local copy, so a stale local entry lives only until the
+ * message arrives, and at most for the local TTL if it is lost. Both tiers report their own
+ * {@code cache.gets} hit and miss counts, tagged {@code tier=l1} and {@code tier=l2}.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager {
+
+    public static final String CHANNEL = "cache:invalidations";
+
+    private final RedisCacheManager remote;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final NearCacheProperties properties;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager remote, StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry, NearCacheProperties properties) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::create);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    /**
+     * Apply an invalidation published by any node; the node's own messages are ignored.
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\n", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    private TwoTierCache create(String name) {
+        Cache cache = remote.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        NearCacheProperties.Spec spec = properties.spec(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getMaxEntries())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, Tags.of("tier", "l1"));
+        if (cache instanceof RedisCache redisCache) {
+            new RedisCacheMetrics(redisCache, Tags.of("tier", "l2")).bindTo(meterRegistry);
+        }
+        return new TwoTierCache(name, local, cache, this::publish);
+    }
+
+    private void publish(String cacheName, String localKey) {
+        String message = nodeId + "\n" + cacheName + (localKey != null ? "\n" + localKey : "");
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            // Other nodes fall back to the local TTL for this key
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.iloveshopping.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC configuration.
+ */
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(HttpCacheProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final HttpCaching httpCaching;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(httpCaching);
+    }
+}
@@ -1,5 +1,6 @@
 package com.iloveshopping.controller;
 
+import com.iloveshopping.config.HttpCached;
 import com.iloveshopping.dto.response.ApiResponse;
 import com.iloveshopping.dto.response.CategoryResponse;
 import com.iloveshopping.service.CategoryService;
@@ -14,10 +15,12 @@ import java.util.UUID;
 
 /**
  * Category controller for browsing product categories.
+ * Responses are validated against the catalog version.
  */
 @RestController
 @RequestMapping("/categories")
 @RequiredArgsConstructor
+@HttpCached("categories")
 @Tag(name = "Categories", description = "Product category endpoints")
 public class CategoryController {
 
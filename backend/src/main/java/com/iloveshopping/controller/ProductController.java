@@ -1,7 +1,16 @@
 package com.iloveshopping.controller;
 
+import com.iloveshopping.config.HttpCached;
+import com.iloveshopping.config.HttpCaching;
 import com.iloveshopping.dto.response.ApiResponse;
+import com.iloveshopping.dto.response.CursorPage;
+import com.iloveshopping.dto.response.ProductFacetsResponse;
 import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.dto.response.SlicePage;
+import com.iloveshopping.repository.ProductVersion;
+import com.iloveshopping.search.ProductSearchCriteria;
+import com.iloveshopping.search.SearchMode;
+import com.iloveshopping.search.TotalMode;
 import com.iloveshopping.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,24 +21,36 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Product catalog controller for browsing and searching products.
+ * Listings are validated against the catalog version and product detail against a digest of its content;
+ * search and suggestions are not validated, so every search reaches the handler and its analytics.
+ * Each listing has one handler per response shape, picked by the request parameters: a {@code cursor}
+ * gets a {@link CursorPage}, {@code total=estimate} or {@code total=none} a {@link SlicePage}, and
+ * anything else, including {@code total=exact}, the counted {@link Page}.
  */
 @RestController
 @RequestMapping("/products")
 @RequiredArgsConstructor
+@HttpCached("product-listings")
 @Tag(name = "Products", description = "Product catalog endpoints")
 public class ProductController {
 
+    private static final String PRODUCT_DETAIL = "product-detail";
+    private static final String PRODUCT_SEARCH = "product-search";
+
     private final ProductService productService;
+    private final HttpCaching httpCaching;
 
-    @GetMapping
+    @GetMapping(params = "!cursor")
     @Operation(summary = "Get all products with pagination")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
@@ -41,26 +62,71 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping(params = {"!cursor", "total=estimate"})
+    @Operation(summary = "Get all products with an estimated count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getAllProductsEstimated(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getAllProducts(pageable, TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(params = {"!cursor", "total=none"})
+    @Operation(summary = "Get all products without a count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getAllProductsUncounted(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getAllProducts(pageable, TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Get all products with keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getAllProductsAfterCursor(
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page")
+                @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<ProductResponse> products = productService.getAllProducts(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID")
+    @HttpCached(value = PRODUCT_DETAIL, catalogVersion = false)
     public ResponseEntity<ApiResponse<ProductResponse>> getProductById(
-            @PathVariable UUID id) {
+            @PathVariable UUID id, WebRequest request) {
         
-        ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(ApiResponse.success(product));
+        return productDetail(request, () -> productService.getProductVersion(id),
+                () -> productService.getProductById(id));
     }
 
     @GetMapping("/slug/{slug}")
     @Operation(summary = "Get product by slug")
+    @HttpCached(value = PRODUCT_DETAIL, catalogVersion = false)
     public ResponseEntity<ApiResponse<ProductResponse>> getProductBySlug(
-            @PathVariable String slug) {
+            @PathVariable String slug, WebRequest request) {
         
-        ProductResponse product = productService.getProductBySlug(slug);
-        return ResponseEntity.ok(ApiResponse.success(product));
+        return productDetail(request, () -> productService.getProductVersionBySlug(slug),
+                () -> productService.getProductBySlug(slug));
+    }
+
+    @GetMapping("/compare")
+    @Operation(summary = "Get full details for several products, for comparison")
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> compareProducts(
+            @Parameter(description = "Product ids, in display order") @RequestParam List<UUID> ids) {
+
+        List<ProductResponse> products = productService.getProductsForComparison(ids);
+        return ResponseEntity.ok(ApiResponse.success(products));
     }
 
-    @GetMapping("/search")
+    @GetMapping(value = "/search", params = "!cursor")
     @Operation(summary = "Search products with faceted filtering")
+    @HttpCached(value = PRODUCT_SEARCH, catalogVersion = false)
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> searchProducts(
             @Parameter(description = "Search query") @RequestParam(required = false) String q,
             @Parameter(description = "Category ID") @RequestParam(required = false) UUID categoryId,
@@ -70,23 +136,143 @@ public class ProductController {
             @Parameter(description = "Minimum rating") @RequestParam(required = false) BigDecimal minRating,
             @Parameter(description = "Only in stock") @RequestParam(required = false) Boolean inStock,
             @Parameter(description = "Only on sale") @RequestParam(required = false) Boolean onSale,
-            @Parameter(description = "Sort by: price, rating, newest, bestselling, name") 
+            @Parameter(description = "Attribute filters as attributeId:value, repeatable")
+                @RequestParam(required = false) List<String> attr,
+            @Parameter(description = "Sort by: relevance, price, rating, newest, bestselling, name") 
                 @RequestParam(defaultValue = "relevance") String sortBy,
             @Parameter(description = "Sort direction: asc, desc") 
                 @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Keyword search engine: index, fts (defaults to app.search.engine)")
+                @RequestParam(required = false) String mode,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
+        ProductSearchCriteria criteria = searchCriteria(q, categoryId, brandId, minPrice, maxPrice, minRating,
+                inStock, onSale, attr, mode);
         Pageable pageable = PageRequest.of(page, size);
-        Page<ProductResponse> products = productService.searchProducts(
-                q, categoryId, brandId, minPrice, maxPrice, minRating,
-                inStock, onSale, sortBy, sortDir, pageable);
+        Page<ProductResponse> products = productService.searchProducts(criteria, sortBy, sortDir, pageable);
         
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping(value = "/search", params = {"!cursor", "total=estimate"})
+    @Operation(summary = "Search products with an estimated count")
+    @HttpCached(value = PRODUCT_SEARCH, catalogVersion = false)
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> searchProductsEstimated(
+            @Parameter(description = "Search query") @RequestParam(required = false) String q,
+            @Parameter(description = "Category ID") @RequestParam(required = false) UUID categoryId,
+            @Parameter(description = "Brand ID") @RequestParam(required = false) UUID brandId,
+            @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Minimum rating") @RequestParam(required = false) BigDecimal minRating,
+            @Parameter(description = "Only in stock") @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Only on sale") @RequestParam(required = false) Boolean onSale,
+            @Parameter(description = "Attribute filters as attributeId:value, repeatable")
+                @RequestParam(required = false) List<String> attr,
+            @Parameter(description = "Sort by: relevance, price, rating, newest, bestselling, name") 
+                @RequestParam(defaultValue = "relevance") String sortBy,
+            @Parameter(description = "Sort direction: asc, desc") 
+                @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Keyword search engine: index, fts (defaults to app.search.engine)")
+                @RequestParam(required = false) String mode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        ProductSearchCriteria criteria = searchCriteria(q, categoryId, brandId, minPrice, maxPrice, minRating,
+                inStock, onSale, attr, mode);
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.searchProducts(criteria, sortBy, sortDir, pageable,
+                TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/search", params = {"!cursor", "total=none"})
+    @Operation(summary = "Search products without a count")
+    @HttpCached(value = PRODUCT_SEARCH, catalogVersion = false)
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> searchProductsUncounted(
+            @Parameter(description = "Search query") @RequestParam(required = false) String q,
+            @Parameter(description = "Category ID") @RequestParam(required = false) UUID categoryId,
+            @Parameter(description = "Brand ID") @RequestParam(required = false) UUID brandId,
+            @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Minimum rating") @RequestParam(required = false) BigDecimal minRating,
+            @Parameter(description = "Only in stock") @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Only on sale") @RequestParam(required = false) Boolean onSale,
+            @Parameter(description = "Attribute filters as attributeId:value, repeatable")
+                @RequestParam(required = false) List<String> attr,
+            @Parameter(description = "Sort by: relevance, price, rating, newest, bestselling, name") 
+                @RequestParam(defaultValue = "relevance") String sortBy,
+            @Parameter(description = "Sort direction: asc, desc") 
+                @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Keyword search engine: index, fts (defaults to app.search.engine)")
+                @RequestParam(required = false) String mode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        ProductSearchCriteria criteria = searchCriteria(q, categoryId, brandId, minPrice, maxPrice, minRating,
+                inStock, onSale, attr, mode);
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.searchProducts(criteria, sortBy, sortDir, pageable,
+                TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/search", params = "cursor")
+    @Operation(summary = "Search products with keyset pagination")
+    @HttpCached(value = PRODUCT_SEARCH, catalogVersion = false)
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> searchProductsAfterCursor(
+            @Parameter(description = "Search query") @RequestParam(required = false) String q,
+            @Parameter(description = "Category ID") @RequestParam(required = false) UUID categoryId,
+            @Parameter(description = "Brand ID") @RequestParam(required = false) UUID brandId,
+            @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Minimum rating") @RequestParam(required = false) BigDecimal minRating,
+            @Parameter(description = "Only in stock") @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Only on sale") @RequestParam(required = false) Boolean onSale,
+            @Parameter(description = "Attribute filters as attributeId:value, repeatable")
+                @RequestParam(required = false) List<String> attr,
+            @Parameter(description = "Sort by: relevance, price, rating, newest, bestselling, name") 
+                @RequestParam(defaultValue = "relevance") String sortBy,
+            @Parameter(description = "Sort direction: asc, desc") 
+                @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Keyword search engine: index, fts (defaults to app.search.engine)")
+                @RequestParam(required = false) String mode,
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page")
+                @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        ProductSearchCriteria criteria = searchCriteria(q, categoryId, brandId, minPrice, maxPrice, minRating,
+                inStock, onSale, attr, mode);
+        CursorPage<ProductResponse> products = productService.searchProducts(criteria, sortBy, sortDir, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping("/search/facets")
+    @Operation(summary = "Get facet counts for a product search")
+    public ResponseEntity<ApiResponse<ProductFacetsResponse>> getSearchFacets(
+            @Parameter(description = "Search query") @RequestParam(required = false) String q,
+            @Parameter(description = "Category ID") @RequestParam(required = false) UUID categoryId,
+            @Parameter(description = "Brand ID") @RequestParam(required = false) UUID brandId,
+            @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Minimum rating") @RequestParam(required = false) BigDecimal minRating,
+            @Parameter(description = "Only in stock") @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Only on sale") @RequestParam(required = false) Boolean onSale,
+            @Parameter(description = "Attribute filters as attributeId:value, repeatable")
+                @RequestParam(required = false) List<String> attr,
+            @Parameter(description = "Keyword search engine: index, fts (defaults to app.search.engine)")
+                @RequestParam(required = false) String mode) {
+
+        ProductSearchCriteria criteria = searchCriteria(q, categoryId, brandId, minPrice, maxPrice, minRating,
+                inStock, onSale, attr, mode);
+        ProductFacetsResponse facets = productService.getSearchFacets(criteria);
+
+        return ResponseEntity.ok(ApiResponse.success(facets));
+    }
+
     @GetMapping("/suggestions")
     @Operation(summary = "Get search suggestions based on prefix")
+    @HttpCached(value = "suggestions", catalogVersion = false)
     public ResponseEntity<ApiResponse<List<String>>> getSearchSuggestions(
             @RequestParam String q) {
         
@@ -101,12 +287,12 @@ public class ProductController {
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<ProductResponse> products = productService.getFeaturedProducts(pageable);
+        Page<ProductResponse> products = productService.getFeaturedProducts(pageable).toPage(pageable);
         
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
-    @GetMapping("/new-arrivals")
+    @GetMapping(value = "/new-arrivals", params = "!cursor")
     @Operation(summary = "Get new arrivals")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getNewArrivals(
             @RequestParam(defaultValue = "0") int page,
@@ -118,6 +304,39 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping(value = "/new-arrivals", params = {"!cursor", "total=estimate"})
+    @Operation(summary = "Get new arrivals with an estimated count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getNewArrivalsEstimated(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getNewArrivals(pageable, TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/new-arrivals", params = {"!cursor", "total=none"})
+    @Operation(summary = "Get new arrivals without a count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getNewArrivalsUncounted(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getNewArrivals(pageable, TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/new-arrivals", params = "cursor")
+    @Operation(summary = "Get new arrivals with keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getNewArrivalsAfterCursor(
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page")
+                @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPage<ProductResponse> products = productService.getNewArrivals(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
     @GetMapping("/on-sale")
     @Operation(summary = "Get products on sale")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getOnSaleProducts(
@@ -130,7 +349,29 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
-    @GetMapping("/best-sellers")
+    @GetMapping(value = "/on-sale", params = "total=estimate")
+    @Operation(summary = "Get products on sale with an estimated count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getOnSaleProductsEstimated(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getOnSaleProducts(pageable, TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/on-sale", params = "total=none")
+    @Operation(summary = "Get products on sale without a count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getOnSaleProductsUncounted(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getOnSaleProducts(pageable, TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/best-sellers", params = "!cursor")
     @Operation(summary = "Get best selling products")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getBestSellers(
             @RequestParam(defaultValue = "0") int page,
@@ -142,7 +383,52 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
-    @GetMapping("/category/{categoryId}")
+    @GetMapping(value = "/best-sellers", params = {"!cursor", "total=estimate"})
+    @Operation(summary = "Get best selling products with an estimated count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getBestSellersEstimated(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getBestSellers(pageable, TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/best-sellers", params = {"!cursor", "total=none"})
+    @Operation(summary = "Get best selling products without a count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getBestSellersUncounted(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getBestSellers(pageable, TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/best-sellers", params = "cursor")
+    @Operation(summary = "Get best selling products with keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getBestSellersAfterCursor(
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page")
+                @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        CursorPage<ProductResponse> products = productService.getBestSellers(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "Get products with the most recent views and sales")
+    @HttpCached(value = "trending", catalogVersion = false)
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getTrendingProducts(
+            @Parameter(description = "Limit to a category and its subcategories")
+                @RequestParam(required = false) UUID categoryId,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        List<ProductResponse> products = productService.getTrendingProducts(categoryId, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/category/{categoryId}", params = "!cursor")
     @Operation(summary = "Get products by category")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProductsByCategory(
             @PathVariable UUID categoryId,
@@ -155,7 +441,43 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
-    @GetMapping("/brand/{brandId}")
+    @GetMapping(value = "/category/{categoryId}", params = {"!cursor", "total=estimate"})
+    @Operation(summary = "Get products by category with an estimated count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getProductsByCategoryEstimated(
+            @PathVariable UUID categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getProductsByCategory(categoryId, pageable, TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/category/{categoryId}", params = {"!cursor", "total=none"})
+    @Operation(summary = "Get products by category without a count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getProductsByCategoryUncounted(
+            @PathVariable UUID categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getProductsByCategory(categoryId, pageable, TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/category/{categoryId}", params = "cursor")
+    @Operation(summary = "Get products by category with keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsByCategoryAfterCursor(
+            @PathVariable UUID categoryId,
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page")
+                @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<ProductResponse> products = productService.getProductsByCategory(categoryId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/brand/{brandId}", params = "!cursor")
     @Operation(summary = "Get products by brand")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProductsByBrand(
             @PathVariable UUID brandId,
@@ -168,6 +490,42 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
+    @GetMapping(value = "/brand/{brandId}", params = {"!cursor", "total=estimate"})
+    @Operation(summary = "Get products by brand with an estimated count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getProductsByBrandEstimated(
+            @PathVariable UUID brandId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getProductsByBrand(brandId, pageable, TotalMode.ESTIMATE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/brand/{brandId}", params = {"!cursor", "total=none"})
+    @Operation(summary = "Get products by brand without a count")
+    public ResponseEntity<ApiResponse<SlicePage<ProductResponse>>> getProductsByBrandUncounted(
+            @PathVariable UUID brandId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        SlicePage<ProductResponse> products = productService.getProductsByBrand(brandId, pageable, TotalMode.NONE);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    @GetMapping(value = "/brand/{brandId}", params = "cursor")
+    @Operation(summary = "Get products by brand with keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsByBrandAfterCursor(
+            @PathVariable UUID brandId,
+            @Parameter(description = "Keyset cursor; pass an empty value for the first page")
+                @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        CursorPage<ProductResponse> products = productService.getProductsByBrand(brandId, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
     @GetMapping("/price-range")
     @Operation(summary = "Get price range for filtering")
     public ResponseEntity<ApiResponse<Map<String, BigDecimal>>> getPriceRange(
@@ -176,4 +534,39 @@ public class ProductController {
         Map<String, BigDecimal> priceRange = productService.getPriceRange(categoryId);
         return ResponseEntity.ok(ApiResponse.success(priceRange));
     }
+
+    /**
+     * A revalidating client is answered from the version columns alone, and still counts as a view;
+     * anyone else gets the detail with its validators.
+     */
+    private ResponseEntity<ApiResponse<ProductResponse>> productDetail(
+            WebRequest request, Supplier<ProductVersion> version, Supplier<ProductResponse> detail) {
+
+        if (httpCaching.isEnabled()) {
+            // Read before the body, so a change in between makes the tag older than the body, never newer
+            ProductVersion current = version.get();
+            if (httpCaching.checkNotModified(request, PRODUCT_DETAIL, current.etag(), -1)) {
+                productService.recordView(current);
+                return null;
+            }
+        }
+        return ResponseEntity.ok(ApiResponse.success(detail.get()));
+    }
+
+    private static ProductSearchCriteria searchCriteria(String q, UUID categoryId, UUID brandId, BigDecimal minPrice,
+                                                        BigDecimal maxPrice, BigDecimal minRating, Boolean inStock,
+                                                        Boolean onSale, List<String> attr, String mode) {
+        return ProductSearchCriteria.builder()
+                .query(q)
+                .categoryId(categoryId)
+                .brandId(brandId)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .inStock(inStock)
+                .onSale(onSale)
+                .attributes(ProductSearchCriteria.parseAttributes(attr))
+                .mode(SearchMode.from(mode))
+                .build();
+    }
 }
@@ -0,0 +1,26 @@
+package com.iloveshopping.dto.response;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page reduced to its content and total, for values kept in Redis.
+ *
+ * {@link PageImpl} has no creator a cache serializer can read back, so cached pages are stored
+ * in this form and turned back into a {@link Page} for the request that asked for them.
+ */
+public record CachedPage<T>(List<T> content, long totalElements) {
+
+    public static <T> CachedPage<T> of(Page<T> page) {
+        // A plain list: the unmodifiable view Page hands out cannot be deserialized
+        return new CachedPage<>(new ArrayList<>(page.getContent()), page.getTotalElements());
+    }
+
+    public Page<T> toPage(Pageable pageable) {
+        return new PageImpl<>(content, pageable, totalElements);
+    }
+}
@@ -1,5 +1,6 @@
 package com.iloveshopping.dto.response;
 
+import com.iloveshopping.catalog.CategoryTree;
 import com.iloveshopping.entity.Category;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,8 +28,32 @@ public class CategoryResponse {
     private String imageUrl;
     private Integer displayOrder;
     private UUID parentId;
+    private int level;
+    private String fullPath;
     private List<CategoryResponse> children;
     private long productCount;
+    private long directProductCount;
+
+    /**
+     * Response for a node of the in-memory category tree, without children.
+     * {@code productCount} includes products in descendant categories.
+     */
+    public static CategoryResponse fromNode(CategoryTree.Node node, long productCount, long directProductCount) {
+        return CategoryResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .slug(node.slug())
+                .description(node.description())
+                .imageUrl(node.imageUrl())
+                .displayOrder(node.displayOrder())
+                .parentId(node.parentId())
+                .level(node.depth())
+                .fullPath(node.fullPath())
+                .productCount(productCount)
+                .directProductCount(directProductCount)
+                .children(new ArrayList<>())
+                .build();
+    }
 
     public static CategoryResponse fromEntity(Category category) {
         return fromEntity(category, false, 0);
@@ -0,0 +1,69 @@
+package com.iloveshopping.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Facet counts for a product search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsResponse {
+
+    private long total;
+    private List<FacetValue> categories;
+    private List<FacetValue> brands;
+    private List<PriceRange> priceRanges;
+    private List<RatingBucket> ratings;
+    private long inStock;
+    private long onSale;
+    private List<AttributeFacet> attributes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        private String value;
+        private String label;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRange {
+        private BigDecimal min;
+        private BigDecimal max;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RatingBucket {
+        private int minRating;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AttributeFacet {
+        private UUID attributeId;
+        private String name;
+        private String displayName;
+        private List<FacetValue> values;
+    }
+}
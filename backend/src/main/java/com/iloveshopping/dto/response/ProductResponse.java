@@ -1,6 +1,7 @@
 package com.iloveshopping.dto.response;
 
 import com.iloveshopping.entity.Product;
+import com.iloveshopping.repository.ProductSummaryRow;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -219,4 +220,38 @@ public class ProductResponse {
 
         return builder.build();
     }
+
+    public static ProductResponse summary(ProductSummaryRow row) {
+        ProductResponseBuilder builder = ProductResponse.builder()
+                .id(row.id())
+                .sku(row.sku())
+                .name(row.name())
+                .slug(row.slug())
+                .shortDescription(row.shortDescription())
+                .price(row.price())
+                .compareAtPrice(row.compareAtPrice())
+                .inStock(row.inStock())
+                .onSale(row.onSale())
+                .discountPercentage(row.discountPercentage())
+                .averageRating(row.averageRating())
+                .reviewCount(row.reviewCount())
+                .featured(Boolean.TRUE.equals(row.featured()));
+
+        if (row.primaryImageUrl() != null) {
+            builder.images(List.of(ImageInfo.builder()
+                    .imageUrl(row.primaryImageUrl())
+                    .primary(true)
+                    .build()));
+        }
+
+        if (row.brandId() != null) {
+            builder.brand(BrandInfo.builder()
+                    .id(row.brandId())
+                    .name(row.brandName())
+                    .slug(row.brandSlug())
+                    .build());
+        }
+
+        return builder.build();
+    }
 }
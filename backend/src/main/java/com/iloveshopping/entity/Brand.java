@@ -2,6 +2,8 @@ package com.iloveshopping.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,6 +17,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "brands")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "brands")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,41 @@
+package com.iloveshopping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Ancestor/descendant pair of the category hierarchy, including each category paired with itself.
+ * Rows are maintained by database triggers on {@code categories.parent_id}; the application only reads them.
+ */
+@Entity
+@Table(name = "category_closure")
+@IdClass(CategoryClosure.Key.class)
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private UUID ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private UUID descendantId;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID ancestorId;
+        private UUID descendantId;
+    }
+}
@@ -2,6 +2,7 @@ package com.iloveshopping.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,9 +17,14 @@ import java.util.UUID;
 /**
  * Product entity representing items for sale in the e-commerce platform.
  * Includes comprehensive product information, pricing, inventory, and dimensions.
+ *
+ * Listing queries that return entities load through the {@value #SUMMARY_GRAPH} entity graph, which
+ * joins the brand, while images are batch-fetched for the whole page, so a summary page costs a fixed
+ * number of queries.
  */
 @Entity
 @Table(name = "products")
+@NamedEntityGraph(name = Product.SUMMARY_GRAPH, attributeNodes = @NamedAttributeNode("brand"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,6 +32,8 @@ import java.util.UUID;
 @Builder
 public class Product {
 
+    public static final String SUMMARY_GRAPH = "Product.summary";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -119,7 +127,7 @@ public class Product {
     @Column(name = "meta_keywords")
     private String metaKeywords;
 
-    @Column(name = "average_rating", precision = 3, scale = 2)
+    @Column(name = "average_rating", precision = 3, scale = 2, nullable = false)
     @Builder.Default
     private BigDecimal averageRating = BigDecimal.ZERO;
 
@@ -131,12 +139,13 @@ public class Product {
     @Builder.Default
     private Integer viewCount = 0;
 
-    @Column(name = "sold_count")
+    @Column(name = "sold_count", nullable = false)
     @Builder.Default
     private Integer soldCount = 0;
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("displayOrder ASC")
+    @BatchSize(size = 100)
     @Builder.Default
     private List<ProductImage> images = new ArrayList<>();
 
@@ -2,6 +2,8 @@ package com.iloveshopping.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,6 +14,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "product_attributes")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "productAttributes")
 @Getter
 @Setter
 @NoArgsConstructor
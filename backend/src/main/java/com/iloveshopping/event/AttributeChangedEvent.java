@@ -0,0 +1,14 @@
+package com.iloveshopping.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a product attribute definition or a product's attribute value has been committed.
+ * {@code productId} is set for value changes and null when the attribute definition itself changed.
+ */
+public record AttributeChangedEvent(UUID attributeId, UUID productId) {
+
+    public boolean isDefinitionChange() {
+        return productId == null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.iloveshopping.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a brand insert, update or delete has been committed.
+ */
+public record BrandChangedEvent(UUID brandId) {
+}
@@ -0,0 +1,159 @@
+package com.iloveshopping.event;
+
+import com.iloveshopping.entity.Brand;
+import com.iloveshopping.entity.Category;
+import com.iloveshopping.entity.Product;
+import com.iloveshopping.entity.ProductAttribute;
+import com.iloveshopping.entity.ProductAttributeValue;
+import com.iloveshopping.entity.ProductImage;
+import com.iloveshopping.event.ProductChangedEvent.ChangeType;
+import com.iloveshopping.event.ProductChangedEvent.ProductState;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Hibernate post-commit listener that turns committed catalog entity changes
+ * into Spring application events.
+ * Bulk JPQL updates (stock, view counters) bypass the persistence context and
+ * are intentionally not reported.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogChangeListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            publish(new ProductChangedEvent(product.getId(), ChangeType.CREATED,
+                    null, productState(event.getPersister(), event.getState())));
+        } else {
+            publishReferenceChange(event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            ProductState before = event.getOldState() != null
+                    ? productState(event.getPersister(), event.getOldState())
+                    : null;
+            publish(new ProductChangedEvent(product.getId(), ChangeType.UPDATED,
+                    before, productState(event.getPersister(), event.getState())));
+        } else {
+            publishReferenceChange(event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            publish(new ProductChangedEvent(product.getId(), ChangeType.DELETED,
+                    productState(event.getPersister(), event.getDeletedState()), null));
+        } else {
+            publishReferenceChange(event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was committed, so there is nothing to propagate
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was committed, so there is nothing to propagate
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was committed, so there is nothing to propagate
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return Product.class.isAssignableFrom(type)
+                || Category.class.isAssignableFrom(type)
+                || ProductAttributeValue.class.isAssignableFrom(type)
+                || ProductAttribute.class.isAssignableFrom(type)
+                || Brand.class.isAssignableFrom(type)
+                || ProductImage.class.isAssignableFrom(type);
+    }
+
+    private void publish(Object event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            // The transaction is already committed; never let a listener fail it after the fact
+            log.error("Failed to publish catalog change event {}", event, e);
+        }
+    }
+
+    private void publishReferenceChange(Object entity) {
+        if (entity instanceof Category category) {
+            publish(new CategoryChangedEvent(category.getId()));
+        } else if (entity instanceof ProductAttributeValue value) {
+            UUID attributeId = value.getAttribute() != null ? value.getAttribute().getId() : null;
+            UUID productId = value.getProduct() != null ? value.getProduct().getId() : null;
+            if (productId != null) {
+                publish(new AttributeChangedEvent(attributeId, productId));
+            }
+        } else if (entity instanceof ProductAttribute attribute) {
+            publish(new AttributeChangedEvent(attribute.getId(), null));
+        } else if (entity instanceof Brand brand) {
+            publish(new BrandChangedEvent(brand.getId()));
+        } else if (entity instanceof ProductImage image && image.getProduct() != null) {
+            publish(new ProductImageChangedEvent(image.getProduct().getId()));
+        }
+    }
+
+    private ProductState productState(EntityPersister persister, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        String[] names = persister.getPropertyNames();
+        UUID categoryId = null;
+        UUID brandId = null;
+        boolean active = false;
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i]) {
+                case "category" -> categoryId = state[i] instanceof Category c ? c.getId() : null;
+                case "brand" -> brandId = state[i] instanceof Brand b ? b.getId() : null;
+                case "isActive" -> active = Boolean.TRUE.equals(state[i]);
+                default -> { }
+            }
+        }
+        return new ProductState(categoryId, brandId, active);
+    }
+}
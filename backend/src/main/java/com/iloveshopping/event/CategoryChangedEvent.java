@@ -0,0 +1,9 @@
+package com.iloveshopping.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a category insert, update or delete has been committed.
+ */
+public record CategoryChangedEvent(UUID categoryId) {
+}
@@ -0,0 +1,43 @@
+package com.iloveshopping.event;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Published after a product row has been committed.
+ * Carries the product state before and after the change so listeners can
+ * maintain derived structures incrementally. {@code before} is null for
+ * inserts and {@code after} is null for deletes.
+ * {@code sequence} numbers events in the order they were created on this node,
+ * which is after their commit, so listeners that reload from the database can
+ * tell which events the reload already includes.
+ */
+public record ProductChangedEvent(UUID productId, ChangeType type, ProductState before, ProductState after,
+                                  long sequence) {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public ProductChangedEvent(UUID productId, ChangeType type, ProductState before, ProductState after) {
+        this(productId, type, before, after, SEQUENCE.incrementAndGet());
+    }
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    /**
+     * The subset of product columns that derived catalog structures key on.
+     */
+    public record ProductState(UUID categoryId, UUID brandId, boolean active) {}
+
+    public boolean isDeleted() {
+        return type == ChangeType.DELETED;
+    }
+
+    /**
+     * Sequence of the most recently created event; every later event has a higher one.
+     */
+    public static long lastSequence() {
+        return SEQUENCE.get();
+    }
+}
@@ -0,0 +1,9 @@
+package com.iloveshopping.event;
+
+import java.util.UUID;
+
+/**
+ * Published after an image of a product has been inserted, updated or deleted and committed.
+ */
+public record ProductImageChangedEvent(UUID productId) {
+}
@@ -0,0 +1,10 @@
+package com.iloveshopping.event;
+
+import java.util.UUID;
+
+/**
+ * Published after an order line for a product has been committed, for listeners that track
+ * recent sales activity. {@code categoryId} is the product's category at the time of the sale.
+ */
+public record ProductSoldEvent(UUID productId, UUID categoryId, int quantity) {
+}
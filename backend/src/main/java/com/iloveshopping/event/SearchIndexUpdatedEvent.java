@@ -0,0 +1,13 @@
+package com.iloveshopping.event;
+
+/**
+ * Published by the in-memory search index once it has applied a catalog change.
+ * {@code change} is the {@link ProductChangedEvent} or {@link AttributeChangedEvent} that was
+ * applied, or null after a full rebuild replaced the whole index.
+ */
+public record SearchIndexUpdatedEvent(Object change) {
+
+    public boolean isRebuild() {
+        return change == null;
+    }
+}
@@ -1,8 +1,11 @@
 package com.iloveshopping.repository;
 
 import com.iloveshopping.entity.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +14,9 @@ import java.util.UUID;
 
 /**
  * Repository for Category entity operations.
+ *
+ * The whole-tree reads are cacheable queries: their id lists live in the query cache and the
+ * categories themselves in the entity cache, and any write to the categories table invalidates them.
  */
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, UUID> {
@@ -20,10 +26,16 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     boolean existsBySlug(String slug);
 
     @Query("SELECT c FROM Category c WHERE c.parent IS NULL AND c.isActive = true ORDER BY c.displayOrder")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Category> findRootCategories();
 
     @Query("SELECT c FROM Category c WHERE c.parent.id = :parentId AND c.isActive = true ORDER BY c.displayOrder")
     List<Category> findByParentId(UUID parentId);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Category> findByIsActiveTrueOrderByDisplayOrder();
+
+    @Query("SELECT new com.iloveshopping.repository.CategoryRow(c.id, p.id, c.name, c.slug, c.description, " +
+           "c.imageUrl, c.displayOrder, c.isActive) FROM Category c LEFT JOIN c.parent p")
+    List<CategoryRow> findAllRows();
 }
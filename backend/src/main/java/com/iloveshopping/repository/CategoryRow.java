@@ -0,0 +1,17 @@
+package com.iloveshopping.repository;
+
+import java.util.UUID;
+
+/**
+ * Flat projection of one category, read in bulk to build the in-memory category tree.
+ */
+public record CategoryRow(
+        UUID id,
+        UUID parentId,
+        String name,
+        String slug,
+        String description,
+        String imageUrl,
+        Integer displayOrder,
+        Boolean active) {
+}
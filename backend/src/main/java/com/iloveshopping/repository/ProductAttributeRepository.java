@@ -0,0 +1,17 @@
+package com.iloveshopping.repository;
+
+import com.iloveshopping.entity.ProductAttribute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for ProductAttribute entity operations.
+ */
+@Repository
+public interface ProductAttributeRepository extends JpaRepository<ProductAttribute, UUID> {
+
+    List<ProductAttribute> findByIsFilterableTrueOrderByDisplayOrder();
+}
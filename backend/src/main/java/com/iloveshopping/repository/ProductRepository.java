@@ -3,6 +3,8 @@ package com.iloveshopping.repository;
 import com.iloveshopping.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,15 +13,51 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Repository for Product entity with advanced search capabilities.
+ * Listings read {@link ProductSummaryRow} projections; entity queries used for listings use
+ * {@link Product#SUMMARY_GRAPH} so summaries do not lazy-load the brand per row.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product>,
+        ProductSearchRepository {
+
+    String SUMMARY_SELECT = "SELECT new com.iloveshopping.repository.ProductSummaryRow(" +
+            "p.id, p.sku, p.name, p.slug, p.shortDescription, p.price, p.compareAtPrice, p.stockQuantity, " +
+            "p.averageRating, p.reviewCount, p.isFeatured, b.id, b.name, b.slug) " +
+            "FROM Product p LEFT JOIN p.brand b ";
+
+    /**
+     * Matches products in the {@code :categoryId} category or any category below it, through the closure table.
+     */
+    String IN_CATEGORY_SUBTREE = "p.category.id IN " +
+            "(SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = :categoryId)";
+
+    /**
+     * Everything a product detail shows that can change without {@code updatedAt} moving, joined into one
+     * string for {@link ProductVersion}: columns written by bulk updates, the brand and category rows, and
+     * the image, attribute value and tag rows. Expects {@code p}, its category {@code c} and brand {@code b}.
+     */
+    String VERSION_CONTENT = "concat(" +
+            "coalesce(cast(p.updatedAt as String), ''), '|', coalesce(cast(p.stockQuantity as String), ''), '|', " +
+            "coalesce(cast(p.price as String), ''), '|', coalesce(cast(p.compareAtPrice as String), ''), '|', " +
+            "coalesce(cast(p.averageRating as String), ''), '|', coalesce(cast(p.reviewCount as String), ''), '|', " +
+            "coalesce(cast(p.isActive as String), ''), '|', " +
+            "coalesce(c.name, ''), '|', coalesce(c.slug, ''), '|', " +
+            "coalesce(b.name, ''), '|', coalesce(b.slug, ''), '|', coalesce(b.logoUrl, ''), '|', " +
+            "coalesce((SELECT listagg(concat(cast(i.id as String), ' ', i.imageUrl, ' ', coalesce(i.altText, ''), ' ', " +
+            "coalesce(cast(i.isPrimary as String), ''), ' ', coalesce(cast(i.displayOrder as String), '')), ',') " +
+            "WITHIN GROUP (ORDER BY i.id) FROM ProductImage i WHERE i.product = p), ''), '|', " +
+            "coalesce((SELECT listagg(concat(a.name, ' ', a.displayName, ' ', v.value), ',') " +
+            "WITHIN GROUP (ORDER BY a.name) FROM ProductAttributeValue v JOIN v.attribute a WHERE v.product = p), ''), '|', " +
+            "coalesce((SELECT listagg(t.name, ',') WITHIN GROUP (ORDER BY t.name) " +
+            "FROM Product tp JOIN tp.tags t WHERE tp = p), ''))";
 
     Optional<Product> findBySlug(String slug);
 
@@ -29,57 +67,144 @@ public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpec
 
     boolean existsBySlug(String slug);
 
+    @EntityGraph(Product.SUMMARY_GRAPH)
     Page<Product> findByIsActiveTrue(Pageable pageable);
 
-    Page<Product> findByCategoryIdAndIsActiveTrue(UUID categoryId, Pageable pageable);
+    @Override
+    @EntityGraph(Product.SUMMARY_GRAPH)
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
 
-    Page<Product> findByBrandIdAndIsActiveTrue(UUID brandId, Pageable pageable);
+    // Product detail: the roots with their to-one associations, then one query per collection
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand WHERE p.id IN :ids")
+    List<Product> findWithCategoryAndBrandByIdIn(@Param("ids") Collection<UUID> ids);
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.isFeatured = true")
-    Page<Product> findFeaturedProducts(Pageable pageable);
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand WHERE p.slug = :slug")
+    Optional<Product> findWithCategoryAndBrandBySlug(@Param("slug") String slug);
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.createdAt DESC")
-    Page<Product> findNewArrivals(Pageable pageable);
+    // Conditional GET: compare validators before the detail is loaded
+    @Query("SELECT new com.iloveshopping.repository.ProductVersion(p.id, c.id, " + VERSION_CONTENT + ") " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.brand b WHERE p.id = :id")
+    Optional<ProductVersion> findVersionById(@Param("id") UUID id);
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.compareAtPrice IS NOT NULL AND p.compareAtPrice > p.price")
-    Page<Product> findOnSaleProducts(Pageable pageable);
+    @Query("SELECT new com.iloveshopping.repository.ProductVersion(p.id, c.id, " + VERSION_CONTENT + ") " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.brand b WHERE p.slug = :slug")
+    Optional<ProductVersion> findVersionBySlug(@Param("slug") String slug);
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.soldCount DESC")
-    Page<Product> findBestSellers(Pageable pageable);
+    // Most recent change to any product row, including bulk stock updates
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdatedAt();
 
-    // Full text search using PostgreSQL
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images WHERE p IN :products")
+    List<Product> fetchImages(@Param("products") Collection<Product> products);
+
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.attributeValues v LEFT JOIN FETCH v.attribute " +
+           "WHERE p IN :products")
+    List<Product> fetchAttributeValues(@Param("products") Collection<Product> products);
+
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.tags WHERE p IN :products")
+    List<Product> fetchTags(@Param("products") Collection<Product> products);
+
+    // Summary projections for listings: only the listed columns, no managed entities
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductSummaryRow> findActiveSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true AND " + IN_CATEGORY_SUBTREE,
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND " + IN_CATEGORY_SUBTREE)
+    Page<ProductSummaryRow> findSummariesByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true AND b.id = :brandId",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.brand.id = :brandId")
+    Page<ProductSummaryRow> findSummariesByBrandId(@Param("brandId") UUID brandId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true AND p.isFeatured = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.isFeatured = true")
+    Page<ProductSummaryRow> findFeaturedSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true ORDER BY p.createdAt DESC",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductSummaryRow> findNewArrivalSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT +
+           "WHERE p.isActive = true AND p.compareAtPrice IS NOT NULL AND p.compareAtPrice > p.price",
+           countQuery = "SELECT COUNT(p) FROM Product p " +
+           "WHERE p.isActive = true AND p.compareAtPrice IS NOT NULL AND p.compareAtPrice > p.price")
+    Page<ProductSummaryRow> findOnSaleSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true ORDER BY p.soldCount DESC",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductSummaryRow> findBestSellerSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids")
+    List<ProductSummaryRow> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Image URLs for a page of products, each product's primary image first
+    @Query("SELECT i.product.id, i.imageUrl FROM ProductImage i WHERE i.product.id IN :productIds " +
+           "ORDER BY i.isPrimary DESC NULLS LAST, i.displayOrder ASC")
+    List<Object[]> findImageUrlsByProductIds(@Param("productIds") Collection<UUID> productIds);
+
+    // Full text search over the weighted search_vector column, best matches first
     @Query(value = "SELECT * FROM products p WHERE p.is_active = true AND " +
-            "to_tsvector('english', p.name || ' ' || COALESCE(p.description, '')) @@ plainto_tsquery('english', :query)",
+            "p.search_vector @@ websearch_to_tsquery('english', :query) " +
+            "ORDER BY ts_rank_cd(p.search_vector, websearch_to_tsquery('english', :query)) DESC, p.id",
             countQuery = "SELECT COUNT(*) FROM products p WHERE p.is_active = true AND " +
-            "to_tsvector('english', p.name || ' ' || COALESCE(p.description, '')) @@ plainto_tsquery('english', :query)",
+            "p.search_vector @@ websearch_to_tsquery('english', :query)",
             nativeQuery = true)
     Page<Product> searchProducts(@Param("query") String query, Pageable pageable);
 
-    // Search suggestions
-    @Query(value = "SELECT DISTINCT p.name FROM products p WHERE p.is_active = true AND LOWER(p.name) LIKE LOWER(CONCAT(:prefix, '%')) LIMIT 10",
-            nativeQuery = true)
-    List<String> findSearchSuggestions(@Param("prefix") String prefix);
+    // Tag names for search indexing
+    @Query("SELECT p.id, t.name FROM Product p JOIN p.tags t WHERE p.isActive = true")
+    List<Object[]> findActiveProductTagNames();
+
+    @Query("SELECT t.name FROM Product p JOIN p.tags t WHERE p.id = :productId")
+    List<String> findTagNamesByProductId(@Param("productId") UUID productId);
+
+    @Query("SELECT v.product.id, v.attribute.id, v.value FROM ProductAttributeValue v " +
+           "WHERE v.product.isActive = true AND v.attribute.isFilterable = true")
+    List<Object[]> findActiveFilterableAttributeValues();
+
+    @Query("SELECT v.attribute.id, v.value FROM ProductAttributeValue v " +
+           "WHERE v.product.id = :productId AND v.attribute.isFilterable = true")
+    List<Object[]> findFilterableAttributeValuesByProductId(@Param("productId") UUID productId);
+
+    // Startup warm-up: the product details most likely to be requested first
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = true ORDER BY p.viewCount DESC NULLS LAST, p.id")
+    List<UUID> findMostViewedIds(Pageable pageable);
+
+    // Autocomplete sources: name, units sold, views
+    @Query("SELECT p.name, COALESCE(p.soldCount, 0), COALESCE(p.viewCount, 0) FROM Product p WHERE p.isActive = true")
+    List<Object[]> findActiveProductPopularity();
+
+    @Query("SELECT b.name, SUM(COALESCE(p.soldCount, 0)), SUM(COALESCE(p.viewCount, 0)) FROM Product p JOIN p.brand b " +
+           "WHERE p.isActive = true AND b.isActive = true GROUP BY b.name")
+    List<Object[]> findBrandPopularity();
+
+    @Query("SELECT c.name, SUM(COALESCE(p.soldCount, 0)), SUM(COALESCE(p.viewCount, 0)) FROM Product p JOIN p.category c " +
+           "WHERE p.isActive = true AND c.isActive = true GROUP BY c.name")
+    List<Object[]> findCategoryPopularity();
+
+    @Query("SELECT t.name, SUM(COALESCE(p.soldCount, 0)), SUM(COALESCE(p.viewCount, 0)) FROM Product p JOIN p.tags t " +
+           "WHERE p.isActive = true GROUP BY t.name")
+    List<Object[]> findTagPopularity();
 
     // Price range
     @Query("SELECT MIN(p.price), MAX(p.price) FROM Product p WHERE p.isActive = true")
     Object[] findPriceRange();
 
-    @Query("SELECT MIN(p.price), MAX(p.price) FROM Product p WHERE p.isActive = true AND p.category.id = :categoryId")
+    @Query("SELECT MIN(p.price), MAX(p.price) FROM Product p WHERE p.isActive = true AND " + IN_CATEGORY_SUBTREE)
     Object[] findPriceRangeByCategory(@Param("categoryId") UUID categoryId);
 
     // Stock management
     @Modifying
-    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity WHERE p.id = :productId AND p.stockQuantity >= :quantity")
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = LOCAL DATETIME " +
+            "WHERE p.id = :productId AND p.stockQuantity >= :quantity")
     int decreaseStock(@Param("productId") UUID productId, @Param("quantity") int quantity);
 
     @Modifying
-    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :productId")
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = LOCAL DATETIME " +
+            "WHERE p.id = :productId")
     void increaseStock(@Param("productId") UUID productId, @Param("quantity") int quantity);
 
-    @Modifying
-    @Query("UPDATE Product p SET p.viewCount = p.viewCount + 1 WHERE p.id = :productId")
-    void incrementViewCount(@Param("productId") UUID productId);
-
     // Count by category
     @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.isActive = true GROUP BY p.category.id")
     List<Object[]> countByCategory();
@@ -0,0 +1,51 @@
+package com.iloveshopping.repository;
+
+import com.iloveshopping.search.CursorHits;
+import com.iloveshopping.search.FacetCounts;
+import com.iloveshopping.search.ProductCursor;
+import com.iloveshopping.search.ProductSearchCriteria;
+import com.iloveshopping.search.ProductSort;
+import com.iloveshopping.search.SearchHits;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Native PostgreSQL search queries that cannot be expressed as JPA specifications.
+ */
+public interface ProductSearchRepository {
+
+    /**
+     * Full-text search over the weighted {@code search_vector} column combined with the faceted filters.
+     * With {@link ProductSort#RELEVANCE} results are ordered by {@code ts_rank_cd}.
+     */
+    SearchHits fullTextSearch(ProductSearchCriteria criteria, ProductSort sort, long offset, int limit);
+
+    /**
+     * Keyset page over the same filters: rows strictly after {@code after} in the sort order, without a COUNT.
+     * Seeks with a row comparison on {@code (sort keys..., id)} so the composite indexes can be range-scanned.
+     */
+    CursorHits seek(ProductSearchCriteria criteria, ProductSort sort, ProductCursor after, int limit);
+
+    /**
+     * One page of ids in sort order, without counting; ask for one row more than the page size to detect a next page.
+     */
+    List<UUID> findIds(ProductSearchCriteria criteria, ProductSort sort, long offset, int limit);
+
+    /**
+     * Exact number of products matching the filters.
+     */
+    long countMatching(ProductSearchCriteria criteria);
+
+    /**
+     * The PostgreSQL planner's row estimate for the filters, or null when the database cannot provide one.
+     */
+    Long estimateCount(ProductSearchCriteria criteria);
+
+    /**
+     * Disjunctive facet counts for the filters: one GROUPING SETS pass over the products for the
+     * category, brand, price, rating, stock and sale facets, plus one grouped join for attribute values
+     * in which each attribute ignores its own filter.
+     */
+    FacetCounts facetCounts(ProductSearchCriteria criteria);
+}
@@ -0,0 +1,238 @@
+package com.iloveshopping.repository;
+
+import com.iloveshopping.search.CursorHits;
+import com.iloveshopping.search.FacetCounts;
+import com.iloveshopping.search.ProductCursor;
+import com.iloveshopping.search.ProductSearchCriteria;
+import com.iloveshopping.search.ProductSearchCriteria.Filter;
+import com.iloveshopping.search.ProductSort;
+import com.iloveshopping.search.SearchHits;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Native query implementation of {@link ProductSearchRepository}.
+ */
+class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+    private static final String RANK = "ts_rank_cd(p.search_vector, " + ProductSqlFilter.TS_QUERY + ")::float8";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public SearchHits fullTextSearch(ProductSearchCriteria criteria, ProductSort sort, long offset, int limit) {
+        return new SearchHits(findIds(criteria, sort, offset, limit), countMatching(criteria));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UUID> findIds(ProductSearchCriteria criteria, ProductSort sort, long offset, int limit) {
+        ProductSqlFilter filter = ProductSqlFilter.from(criteria);
+
+        String orderBy = sort == ProductSort.RELEVANCE && criteria.hasKeyword()
+                ? RANK + " DESC, p.id DESC"
+                : sort.toSql();
+
+        // Typed so drivers that report uuid columns as binary still yield UUIDs
+        Query select = entityManager.createNativeQuery(
+                "SELECT p.id FROM products p WHERE " + filter.where()
+                        + " ORDER BY " + orderBy + " LIMIT :limit OFFSET :offset", UUID.class);
+        filter.bind(select);
+        select.setParameter("limit", limit);
+        select.setParameter("offset", offset);
+        return select.getResultList();
+    }
+
+    @Override
+    public long countMatching(ProductSearchCriteria criteria) {
+        ProductSqlFilter filter = ProductSqlFilter.from(criteria);
+        Query count = entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM products p WHERE " + filter.where());
+        filter.bind(count);
+        return ((Number) count.getSingleResult()).longValue();
+    }
+
+    @Override
+    public Long estimateCount(ProductSearchCriteria criteria) {
+        if (!isPostgres()) {
+            return null;
+        }
+        ProductSqlFilter filter = ProductSqlFilter.from(criteria);
+        Query explain = entityManager.createNativeQuery(
+                "EXPLAIN (FORMAT JSON) SELECT 1 FROM products p WHERE " + filter.where());
+        filter.bind(explain);
+        // The first "Plan Rows" in the JSON plan belongs to the top node
+        Matcher matcher = PLAN_ROWS.matcher(String.valueOf(explain.getSingleResult()));
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public FacetCounts facetCounts(ProductSearchCriteria criteria) {
+        ProductSqlFilter filter = ProductSqlFilter.from(criteria);
+        FacetCounts counts = new FacetCounts();
+
+        // Each f_* flag is "passes every filter except this facet's own"
+        StringBuilder flags = new StringBuilder("(" + filter.filtersExcept(null) + ") AS f_all");
+        for (Filter facet : Filter.values()) {
+            flags.append(", (").append(filter.filtersExcept(facet)).append(") AS f_")
+                    .append(facet.name().toLowerCase());
+        }
+        StringBuilder ratingSums = new StringBuilder();
+        for (Integer threshold : FacetCounts.RATING_THRESHOLDS) {
+            ratingSums.append(", SUM(CASE WHEN x.f_rating AND x.average_rating >= ").append(threshold)
+                    .append(" THEN 1 ELSE 0 END)");
+        }
+
+        Query facets = entityManager.createNativeQuery(
+                "SELECT GROUPING(x.category_id, x.brand_id, x.price_bucket), x.category_id, x.brand_id, x.price_bucket, "
+                        + "SUM(CASE WHEN x.f_all THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN x.f_category THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN x.f_brand THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN x.f_price THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN x.f_in_stock AND x.stock_quantity > 0 THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN x.f_on_sale AND x.on_sale THEN 1 ELSE 0 END)"
+                        + ratingSums
+                        + " FROM (SELECT p.category_id, p.brand_id, p.average_rating, p.stock_quantity, "
+                        + priceBucketSql() + " AS price_bucket, "
+                        + "(p.compare_at_price IS NOT NULL AND p.compare_at_price > p.price) AS on_sale, " + flags
+                        + " FROM products p WHERE " + filter.baseWhere() + ") x"
+                        + " GROUP BY GROUPING SETS ((x.category_id), (x.brand_id), (x.price_bucket), ())");
+        filter.bind(facets);
+
+        for (Object[] row : (List<Object[]>) facets.getResultList()) {
+            // GROUPING() sets a bit for every column rolled up in the row's grouping set
+            switch (((Number) row[0]).intValue()) {
+                case 0b011 -> {
+                    if (row[1] != null) {
+                        counts.addCategory((UUID) row[1], longValue(row[5]));
+                    }
+                }
+                case 0b101 -> {
+                    if (row[2] != null) {
+                        counts.addBrand((UUID) row[2], longValue(row[6]));
+                    }
+                }
+                case 0b110 -> {
+                    if (row[3] != null) {
+                        counts.addPriceBucket(((Number) row[3]).intValue(), longValue(row[7]));
+                    }
+                }
+                default -> {
+                    counts.addTotal(longValue(row[4]));
+                    counts.addInStock(longValue(row[8]));
+                    counts.addOnSale(longValue(row[9]));
+                    for (int i = 0; i < FacetCounts.RATING_THRESHOLDS.size(); i++) {
+                        counts.addRating(i, longValue(row[10 + i]));
+                    }
+                }
+            }
+        }
+
+        Query attributes = entityManager.createNativeQuery(
+                "SELECT v.attribute_id, v.value, COUNT(*) FROM product_attribute_values v "
+                        + "JOIN product_attributes a ON a.id = v.attribute_id "
+                        + "JOIN products p ON p.id = v.product_id "
+                        + "WHERE a.is_filterable = true AND " + filter.baseWhere()
+                        + " AND " + filter.filtersExcept(Filter.ATTRIBUTES)
+                        + " AND " + filter.attributeFiltersExceptOwn()
+                        + " GROUP BY v.attribute_id, v.value");
+        filter.bind(attributes);
+        for (Object[] row : (List<Object[]>) attributes.getResultList()) {
+            counts.addAttributeValue((UUID) row[0], (String) row[1], longValue(row[2]));
+        }
+        return counts;
+    }
+
+    private static String priceBucketSql() {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int bucket = FacetCounts.PRICE_BOUNDS.size() - 1; bucket >= 0; bucket--) {
+            sql.append(" WHEN p.price >= ").append(FacetCounts.PRICE_BOUNDS.get(bucket).toPlainString())
+                    .append(" THEN ").append(bucket);
+        }
+        return sql.append(" END").toString();
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect();
+            postgres = dialect instanceof PostgreSQLDialect;
+        }
+        return postgres;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CursorHits seek(ProductSearchCriteria criteria, ProductSort sort, ProductCursor after, int limit) {
+        ProductSqlFilter filter = ProductSqlFilter.from(criteria);
+        boolean scored = sort == ProductSort.RELEVANCE && criteria.hasKeyword();
+        String ordering = ProductCursor.orderingFor(sort, scored);
+
+        List<String> keyColumns = scored ? List.of(RANK) : sort.keys().stream().map(ProductSort.SortKey::sql).toList();
+        boolean descending = scored || sort.isDescending();
+
+        StringBuilder sql = new StringBuilder("SELECT p.id, ")
+                .append(String.join(", ", keyColumns))
+                .append(" FROM products p WHERE ").append(filter.where());
+        if (after != null) {
+            after.requireOrdering(ordering, keyColumns.size());
+            sql.append(" AND (").append(String.join(", ", keyColumns)).append(", p.id) ")
+                    .append(descending ? "<" : ">").append(" (");
+            for (int i = 0; i < keyColumns.size(); i++) {
+                sql.append(":k").append(i).append(", ");
+            }
+            sql.append(":lastId)");
+        }
+        String dir = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(scored ? RANK + dir + ", p.id" + dir : sort.toSql())
+                .append(" LIMIT :limit");
+
+        Query select = entityManager.createNativeQuery(sql.toString());
+        filter.bind(select);
+        if (after != null) {
+            for (int i = 0; i < keyColumns.size(); i++) {
+                String raw = after.keys().get(i);
+                select.setParameter("k" + i, scored ? Double.valueOf(raw) : sort.keys().get(i).parse(raw));
+            }
+            select.setParameter("lastId", after.lastId());
+        }
+        // One extra row tells whether another page exists without counting the matches
+        select.setParameter("limit", limit + 1);
+        List<Object[]> rows = select.getResultList();
+
+        List<UUID> ids = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            ids.add((UUID) rows.get(i)[0]);
+        }
+        ProductCursor next = null;
+        if (rows.size() > limit) {
+            Object[] last = rows.get(limit - 1);
+            List<Object> keys = new ArrayList<>(keyColumns.size());
+            for (int i = 1; i <= keyColumns.size(); i++) {
+                keys.add(last[i] instanceof Timestamp ts ? ts.toLocalDateTime() : last[i]);
+            }
+            next = ProductCursor.after(ordering, keys, (UUID) last[0]);
+        }
+        return new CursorHits(ids, next);
+    }
+}
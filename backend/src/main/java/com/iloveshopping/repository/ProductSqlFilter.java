@@ -0,0 +1,132 @@
+package com.iloveshopping.repository;
+
+import com.iloveshopping.search.ProductSearchCriteria;
+import com.iloveshopping.search.ProductSearchCriteria.Filter;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds the native WHERE clause over {@code products p} for a search criteria set,
+ * mirroring the JPA specifications used by the entity-based search path.
+ */
+final class ProductSqlFilter {
+
+    static final String TS_QUERY = "websearch_to_tsquery('english', :query)";
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<String> baseConditions = new ArrayList<>();
+    private final Map<Filter, String> filterConditions = new EnumMap<>(Filter.class);
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private int attributeFilterCount;
+
+    private ProductSqlFilter() {
+        conditions.add("p.is_active = true");
+        baseConditions.add("p.is_active = true");
+    }
+
+    static ProductSqlFilter from(ProductSearchCriteria criteria) {
+        ProductSqlFilter filter = new ProductSqlFilter();
+
+        if (criteria.hasKeyword()) {
+            filter.add("p.search_vector @@ " + TS_QUERY, "query", criteria.getQuery().trim());
+        }
+        if (criteria.getCategoryId() != null) {
+            filter.add(Filter.CATEGORY, "p.category_id IN (SELECT cc.descendant_id FROM category_closure cc "
+                    + "WHERE cc.ancestor_id = :categoryId)", "categoryId", criteria.getCategoryId());
+        }
+        if (criteria.getBrandId() != null) {
+            filter.add(Filter.BRAND, "p.brand_id = :brandId", "brandId", criteria.getBrandId());
+        }
+        if (criteria.getMinPrice() != null) {
+            filter.add(Filter.PRICE, "p.price >= :minPrice", "minPrice", criteria.getMinPrice());
+        }
+        if (criteria.getMaxPrice() != null) {
+            filter.add(Filter.PRICE, "p.price <= :maxPrice", "maxPrice", criteria.getMaxPrice());
+        }
+        if (criteria.getMinRating() != null) {
+            filter.add(Filter.RATING, "p.average_rating >= :minRating", "minRating", criteria.getMinRating());
+        }
+        if (Boolean.TRUE.equals(criteria.getInStock())) {
+            filter.add(Filter.IN_STOCK, "p.stock_quantity > 0", null, null);
+        }
+        if (Boolean.TRUE.equals(criteria.getOnSale())) {
+            filter.add(Filter.ON_SALE, "p.compare_at_price IS NOT NULL AND p.compare_at_price > p.price", null, null);
+        }
+        if (criteria.hasAttributeFilters()) {
+            int index = 0;
+            for (Map.Entry<UUID, Set<String>> attribute : criteria.getAttributes().entrySet()) {
+                filter.parameters.put("attributeValues" + index, attribute.getValue());
+                filter.add(Filter.ATTRIBUTES, attributeExists(index), "attribute" + index, attribute.getKey());
+                filter.attributeFilterCount++;
+                index++;
+            }
+        }
+        return filter;
+    }
+
+    String where() {
+        return String.join(" AND ", conditions);
+    }
+
+    /**
+     * The active and keyword conditions only, without any of the faceted filters.
+     */
+    String baseWhere() {
+        return String.join(" AND ", baseConditions);
+    }
+
+    /**
+     * Boolean SQL expression for every faceted filter except {@code excluded} ({@code null} keeps them all).
+     */
+    String filtersExcept(Filter excluded) {
+        List<String> kept = new ArrayList<>();
+        filterConditions.forEach((filter, condition) -> {
+            if (filter != excluded) {
+                kept.add("(" + condition + ")");
+            }
+        });
+        return kept.isEmpty() ? "TRUE" : String.join(" AND ", kept);
+    }
+
+    /**
+     * Attribute filters for an attribute value count query over {@code product_attribute_values v}:
+     * each filter applies except the one on the row's own attribute.
+     */
+    String attributeFiltersExceptOwn() {
+        List<String> kept = new ArrayList<>();
+        for (int index = 0; index < attributeFilterCount; index++) {
+            kept.add("(v.attribute_id = :attribute" + index + " OR " + attributeExists(index) + ")");
+        }
+        return kept.isEmpty() ? "TRUE" : String.join(" AND ", kept);
+    }
+
+    void bind(Query query) {
+        parameters.forEach(query::setParameter);
+    }
+
+    private static String attributeExists(int index) {
+        return "EXISTS (SELECT 1 FROM product_attribute_values av WHERE av.product_id = p.id"
+                + " AND av.attribute_id = :attribute" + index + " AND av.value IN (:attributeValues" + index + "))";
+    }
+
+    private void add(String condition, String name, Object value) {
+        conditions.add(condition);
+        baseConditions.add(condition);
+        parameters.put(name, value);
+    }
+
+    private void add(Filter filter, String condition, String name, Object value) {
+        conditions.add(condition);
+        filterConditions.merge(filter, condition, (existing, added) -> existing + " AND " + added);
+        if (name != null) {
+            parameters.put(name, value);
+        }
+    }
+}
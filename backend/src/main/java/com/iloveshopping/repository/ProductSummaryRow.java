@@ -0,0 +1,66 @@
+package com.iloveshopping.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.UUID;
+
+/**
+ * Read-only projection of the columns a product listing shows.
+ *
+ * Filled by JPQL constructor expressions, so listing queries read only these columns and never
+ * create managed entities or dirty-checking snapshots. The primary image comes from a second
+ * projection over the page's ids and is attached with {@link #withPrimaryImageUrl}.
+ */
+public record ProductSummaryRow(
+        UUID id,
+        String sku,
+        String name,
+        String slug,
+        String shortDescription,
+        BigDecimal price,
+        BigDecimal compareAtPrice,
+        Integer stockQuantity,
+        BigDecimal averageRating,
+        Integer reviewCount,
+        Boolean featured,
+        UUID brandId,
+        String brandName,
+        String brandSlug,
+        String primaryImageUrl) {
+
+    /**
+     * Constructor used by the JPQL projections, before the primary image is known.
+     */
+    public ProductSummaryRow(UUID id, String sku, String name, String slug, String shortDescription,
+                             BigDecimal price, BigDecimal compareAtPrice, Integer stockQuantity,
+                             BigDecimal averageRating, Integer reviewCount, Boolean featured,
+                             UUID brandId, String brandName, String brandSlug) {
+        this(id, sku, name, slug, shortDescription, price, compareAtPrice, stockQuantity, averageRating,
+                reviewCount, featured, brandId, brandName, brandSlug, null);
+    }
+
+    public ProductSummaryRow withPrimaryImageUrl(String imageUrl) {
+        return new ProductSummaryRow(id, sku, name, slug, shortDescription, price, compareAtPrice, stockQuantity,
+                averageRating, reviewCount, featured, brandId, brandName, brandSlug, imageUrl);
+    }
+
+    public boolean inStock() {
+        return stockQuantity != null && stockQuantity > 0;
+    }
+
+    public boolean onSale() {
+        return compareAtPrice != null && price != null && compareAtPrice.compareTo(price) > 0;
+    }
+
+    /**
+     * Same rounding as {@link com.iloveshopping.entity.Product#getDiscountPercentage()}.
+     */
+    public BigDecimal discountPercentage() {
+        if (!onSale()) {
+            return BigDecimal.ZERO;
+        }
+        return compareAtPrice.subtract(price)
+                .divide(compareAtPrice, 2, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100));
+    }
+}
@@ -0,0 +1,36 @@
+package com.iloveshopping.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * What a product detail response is validated against: enough to answer a conditional GET without
+ * loading the product, its images or its attributes. The category is carried so a revalidated
+ * detail can still be counted as a view.
+ *
+ * {@code content} is assembled by the query from the row's {@code updated_at} and every value the
+ * detail shows that can change without moving it: columns written by bulk updates, the brand and
+ * category, images, attribute values and tags.
+ */
+public record ProductVersion(UUID id, UUID categoryId, String content) {
+
+    /**
+     * Strong validator: a digest of {@code content}, so it moves with anything the body shows.
+     */
+    public String etag() {
+        return "\"" + id + "-" + digest(content != null ? content : "") + "\"";
+    }
+
+    private static String digest(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.iloveshopping.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One keyset page of product ids, in result order, and the cursor for the following page
+ * (null when this is the last page).
+ */
+public record CursorHits(List<UUID> ids, ProductCursor next) {}
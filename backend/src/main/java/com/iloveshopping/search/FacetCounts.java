@@ -0,0 +1,118 @@
+package com.iloveshopping.search;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Disjunctive facet counts for one search.
+ *
+ * A product counts towards a facet when it passes every filter except, possibly, that facet's
+ * own filter: selecting a brand narrows the categories but leaves the other brands visible.
+ * Each attribute's value counts likewise ignore only the filter on that attribute, and the
+ * total counts the products that pass every filter.
+ */
+public class FacetCounts {
+
+    /**
+     * Lower bounds of the price buckets; the last bucket is open-ended.
+     */
+    public static final List<BigDecimal> PRICE_BOUNDS = List.of(
+            BigDecimal.ZERO, new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+            new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000"));
+
+    /**
+     * Minimum ratings offered as "N stars and up" buckets.
+     */
+    public static final List<Integer> RATING_THRESHOLDS = List.of(4, 3, 2, 1);
+
+    private long total;
+    private final Map<UUID, Long> categories = new HashMap<>();
+    private final Map<UUID, Long> brands = new HashMap<>();
+    private final long[] priceBuckets = new long[PRICE_BOUNDS.size()];
+    private final long[] ratings = new long[RATING_THRESHOLDS.size()];
+    private long inStock;
+    private long onSale;
+    private final Map<UUID, Map<String, Long>> attributes = new HashMap<>();
+
+    /**
+     * Index of the bucket holding the price, or -1 for a missing or negative price.
+     */
+    public static int priceBucket(BigDecimal price) {
+        if (price == null || price.signum() < 0) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket + 1 < PRICE_BOUNDS.size() && price.compareTo(PRICE_BOUNDS.get(bucket + 1)) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public void addTotal(long count) {
+        total += count;
+    }
+
+    public void addCategory(UUID categoryId, long count) {
+        categories.merge(categoryId, count, Long::sum);
+    }
+
+    public void addBrand(UUID brandId, long count) {
+        brands.merge(brandId, count, Long::sum);
+    }
+
+    public void addPriceBucket(int bucket, long count) {
+        priceBuckets[bucket] += count;
+    }
+
+    public void addRating(int thresholdIndex, long count) {
+        ratings[thresholdIndex] += count;
+    }
+
+    public void addInStock(long count) {
+        inStock += count;
+    }
+
+    public void addOnSale(long count) {
+        onSale += count;
+    }
+
+    public void addAttributeValue(UUID attributeId, String value, long count) {
+        attributes.computeIfAbsent(attributeId, id -> new HashMap<>()).merge(value, count, Long::sum);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<UUID, Long> getCategories() {
+        return Collections.unmodifiableMap(categories);
+    }
+
+    public Map<UUID, Long> getBrands() {
+        return Collections.unmodifiableMap(brands);
+    }
+
+    public long getPriceBucket(int bucket) {
+        return priceBuckets[bucket];
+    }
+
+    public long getRating(int thresholdIndex) {
+        return ratings[thresholdIndex];
+    }
+
+    public long getInStock() {
+        return inStock;
+    }
+
+    public long getOnSale() {
+        return onSale;
+    }
+
+    public Map<UUID, Map<String, Long>> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+}
@@ -0,0 +1,262 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.search.ProductSearchCriteria.Filter;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Compressed bitmap postings over the dense document ordinals of {@link ProductSearchIndex}.
+ *
+ * Keeps one bitmap per category, brand, price band, rating band, stock and sale flag and
+ * (attribute, value) pair, so a filter set evaluates as a handful of bitmap AND/OR operations
+ * instead of a per-document scan. Range filters whose bounds fall inside a band re-check only
+ * the documents of that band. Not thread-safe; guarded by the owning index's lock.
+ */
+final class ProductBitmaps {
+
+    /**
+     * Rating bands are the whole stars 0..5; band {@code n} holds ratings in [n, n + 1).
+     */
+    static final int RATING_BANDS = 6;
+
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final Map<UUID, RoaringBitmap> categories = new HashMap<>();
+    private final Map<UUID, RoaringBitmap> brands = new HashMap<>();
+    private final RoaringBitmap[] priceBands = newBitmaps(FacetCounts.PRICE_BOUNDS.size());
+    private final RoaringBitmap[] ratingBands = newBitmaps(RATING_BANDS);
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    private final RoaringBitmap onSale = new RoaringBitmap();
+    private final Map<UUID, Map<String, RoaringBitmap>> attributes = new HashMap<>();
+
+    void add(int ordinal, ProductDocument doc) {
+        live.add(ordinal);
+        if (doc.categoryId() != null) {
+            categories.computeIfAbsent(doc.categoryId(), id -> new RoaringBitmap()).add(ordinal);
+        }
+        if (doc.brandId() != null) {
+            brands.computeIfAbsent(doc.brandId(), id -> new RoaringBitmap()).add(ordinal);
+        }
+        int priceBand = FacetCounts.priceBucket(doc.price());
+        if (priceBand >= 0) {
+            priceBands[priceBand].add(ordinal);
+        }
+        ratingBands[ratingBand(doc.averageRating())].add(ordinal);
+        if (doc.inStock()) {
+            inStock.add(ordinal);
+        }
+        if (doc.onSale()) {
+            onSale.add(ordinal);
+        }
+        doc.attributes().forEach((attributeId, value) -> attributes
+                .computeIfAbsent(attributeId, id -> new HashMap<>())
+                .computeIfAbsent(value, v -> new RoaringBitmap())
+                .add(ordinal));
+    }
+
+    void remove(int ordinal, ProductDocument doc) {
+        live.remove(ordinal);
+        removeFrom(categories, doc.categoryId(), ordinal);
+        removeFrom(brands, doc.brandId(), ordinal);
+        int priceBand = FacetCounts.priceBucket(doc.price());
+        if (priceBand >= 0) {
+            priceBands[priceBand].remove(ordinal);
+        }
+        ratingBands[ratingBand(doc.averageRating())].remove(ordinal);
+        inStock.remove(ordinal);
+        onSale.remove(ordinal);
+        doc.attributes().forEach((attributeId, value) -> {
+            Map<String, RoaringBitmap> values = attributes.get(attributeId);
+            if (values != null) {
+                removeFrom(values, value, ordinal);
+                if (values.isEmpty()) {
+                    attributes.remove(attributeId);
+                }
+            }
+        });
+    }
+
+    RoaringBitmap live() {
+        return live;
+    }
+
+    /**
+     * Ordinals passing every non-keyword filter of the criteria except {@code excluded}
+     * and, for attribute filters, except the filter on {@code excludedAttribute}.
+     */
+    RoaringBitmap filter(ProductSearchCriteria criteria, Filter excluded, UUID excludedAttribute,
+                         IntFunction<ProductDocument> documents) {
+        RoaringBitmap result = live.clone();
+        if (criteria.getCategoryId() != null && excluded != Filter.CATEGORY) {
+            result.and(inCategories(criteria));
+        }
+        if (criteria.getBrandId() != null && excluded != Filter.BRAND) {
+            result.and(brands.getOrDefault(criteria.getBrandId(), new RoaringBitmap()));
+        }
+        if ((criteria.getMinPrice() != null || criteria.getMaxPrice() != null) && excluded != Filter.PRICE) {
+            result.and(priceRange(criteria, documents));
+        }
+        if (criteria.getMinRating() != null && excluded != Filter.RATING) {
+            result.and(minRating(criteria.getMinRating(), criteria, documents));
+        }
+        if (Boolean.TRUE.equals(criteria.getInStock()) && excluded != Filter.IN_STOCK) {
+            result.and(inStock);
+        }
+        if (Boolean.TRUE.equals(criteria.getOnSale()) && excluded != Filter.ON_SALE) {
+            result.and(onSale);
+        }
+        if (criteria.hasAttributeFilters() && excluded != Filter.ATTRIBUTES) {
+            for (Map.Entry<UUID, Set<String>> attribute : criteria.getAttributes().entrySet()) {
+                if (!attribute.getKey().equals(excludedAttribute)) {
+                    result.and(anyValue(attribute.getKey(), attribute.getValue()));
+                }
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap inCategories(ProductSearchCriteria criteria) {
+        if (criteria.getCategorySubtree() == null) {
+            return categories.getOrDefault(criteria.getCategoryId(), new RoaringBitmap());
+        }
+        RoaringBitmap union = new RoaringBitmap();
+        for (UUID categoryId : criteria.getCategorySubtree()) {
+            RoaringBitmap bitmap = categories.get(categoryId);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    Map<UUID, RoaringBitmap> categories() {
+        return categories;
+    }
+
+    Map<UUID, RoaringBitmap> brands() {
+        return brands;
+    }
+
+    RoaringBitmap priceBand(int band) {
+        return priceBands[band];
+    }
+
+    /**
+     * Products rated at least {@code stars}, for whole-star thresholds.
+     */
+    RoaringBitmap ratedAtLeast(int stars) {
+        return RoaringBitmap.or(List.of(ratingBands).subList(stars, RATING_BANDS).iterator());
+    }
+
+    RoaringBitmap inStock() {
+        return inStock;
+    }
+
+    RoaringBitmap onSale() {
+        return onSale;
+    }
+
+    Map<UUID, Map<String, RoaringBitmap>> attributes() {
+        return attributes;
+    }
+
+    private RoaringBitmap anyValue(UUID attributeId, Set<String> values) {
+        Map<String, RoaringBitmap> byValue = attributes.getOrDefault(attributeId, Map.of());
+        RoaringBitmap union = new RoaringBitmap();
+        for (String value : values) {
+            RoaringBitmap bitmap = byValue.get(value);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    private RoaringBitmap priceRange(ProductSearchCriteria criteria, IntFunction<ProductDocument> documents) {
+        BigDecimal min = criteria.getMinPrice();
+        BigDecimal max = criteria.getMaxPrice();
+        List<BigDecimal> bounds = FacetCounts.PRICE_BOUNDS;
+        RoaringBitmap result = new RoaringBitmap();
+        for (int band = 0; band < bounds.size(); band++) {
+            BigDecimal lower = bounds.get(band);
+            BigDecimal upper = band + 1 < bounds.size() ? bounds.get(band + 1) : null;
+            boolean belowMin = min != null && upper != null && upper.compareTo(min) <= 0;
+            boolean aboveMax = max != null && lower.compareTo(max) > 0;
+            if (belowMin || aboveMax) {
+                continue;
+            }
+            // Band prices lie in [lower, upper), so it is fully inside when upper <= max
+            boolean inside = (min == null || lower.compareTo(min) >= 0)
+                    && (max == null || (upper != null && upper.compareTo(max) <= 0));
+            if (inside) {
+                result.or(priceBands[band]);
+            } else {
+                addMatching(result, priceBands[band], documents, criteria::matchesPrice);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap minRating(BigDecimal minRating, ProductSearchCriteria criteria,
+                                    IntFunction<ProductDocument> documents) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int band = 0; band < RATING_BANDS; band++) {
+            BigDecimal lower = BigDecimal.valueOf(band);
+            BigDecimal upper = BigDecimal.valueOf(band + 1L);
+            if (band < RATING_BANDS - 1 && upper.compareTo(minRating) <= 0) {
+                continue;
+            }
+            if (lower.compareTo(minRating) >= 0) {
+                result.or(ratingBands[band]);
+            } else {
+                addMatching(result, ratingBands[band], documents, criteria::matchesRating);
+            }
+        }
+        return result;
+    }
+
+    private static void addMatching(RoaringBitmap target, RoaringBitmap candidates,
+                                    IntFunction<ProductDocument> documents, Predicate<ProductDocument> test) {
+        candidates.forEach((int ordinal) -> {
+            if (test.test(documents.apply(ordinal))) {
+                target.add(ordinal);
+            }
+        });
+    }
+
+    private static int ratingBand(BigDecimal rating) {
+        if (rating == null || rating.signum() <= 0) {
+            return 0;
+        }
+        return Math.min(RATING_BANDS - 1, rating.setScale(0, RoundingMode.FLOOR).intValue());
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static RoaringBitmap[] newBitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+}
@@ -0,0 +1,115 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.event.AttributeChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate totals for count-free listings.
+ *
+ * Exact counts are cached per filter signature and recomputed in the background once they
+ * are older than the configured TTL; until the first count for a signature completes, the
+ * PostgreSQL planner's row estimate is returned instead. The cache is dropped whenever a
+ * product changes, so totals are never more than one TTL or one recount behind.
+ */
+@Slf4j
+@Component
+public class ProductCountEstimator {
+
+    private final ProductRepository productRepository;
+    private final TaskExecutor taskExecutor;
+    private final Duration ttl;
+    private final int maxEntries;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCountEstimator(
+            ProductRepository productRepository,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            @Value("${app.search.count-cache.ttl:PT5M}") Duration ttl,
+            @Value("${app.search.count-cache.max-entries:10000}") int maxEntries) {
+        this.productRepository = productRepository;
+        this.taskExecutor = taskExecutor;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Best available total for the criteria without running a COUNT on the calling thread.
+     * Returns null when neither a cached count nor a planner estimate is available yet.
+     */
+    public Long estimate(ProductSearchCriteria criteria) {
+        String signature = criteria.signature();
+        CachedCount cached = counts.get(signature);
+        if (cached != null && !cached.isExpired(ttl)) {
+            return cached.count();
+        }
+
+        recountAsync(signature, criteria);
+        if (cached != null) {
+            return cached.count();
+        }
+        try {
+            return productRepository.estimateCount(criteria);
+        } catch (RuntimeException e) {
+            log.debug("Planner estimate unavailable for [{}]: {}", signature, e.getMessage());
+            return null;
+        }
+    }
+
+    @EventListener({ProductChangedEvent.class, AttributeChangedEvent.class})
+    public void onCatalogChanged() {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    private void recountAsync(String signature, ProductSearchCriteria criteria) {
+        if (!inFlight.add(signature)) {
+            return;
+        }
+        long startedAt = generation.get();
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    long count = productRepository.countMatching(criteria);
+                    if (generation.get() != startedAt) {
+                        // A product changed while counting; the next request recounts
+                        return;
+                    }
+                    if (counts.size() >= maxEntries) {
+                        counts.clear();
+                    }
+                    counts.put(signature, new CachedCount(count, System.nanoTime()));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to count products for [{}]: {}", signature, e.getMessage());
+                } finally {
+                    inFlight.remove(signature);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(signature);
+            log.warn("Could not schedule product count for [{}]: {}", signature, e.getMessage());
+        }
+    }
+
+    private record CachedCount(long count, long computedAtNanos) {
+
+        boolean isExpired(Duration ttl) {
+            return System.nanoTime() - computedAtNanos > ttl.toNanos();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ * Holds the ordering it was issued for, the sort key values of the last returned row
+ * and that row's id; the next page starts strictly after that position.
+ */
+public record ProductCursor(String ordering, List<String> keys, UUID lastId) {
+
+    /**
+     * Ordering tag for keyword searches ranked by text relevance, where the only key is the score.
+     */
+    public static final String SCORE_ORDERING = "SCORE";
+
+    private static final char SEPARATOR = '\u001f';
+
+    /**
+     * Ordering tag that a cursor must carry to be valid for the given sort.
+     */
+    public static String orderingFor(ProductSort sort, boolean scored) {
+        return scored ? SCORE_ORDERING : sort.name();
+    }
+
+    public static ProductCursor after(String ordering, List<?> keyValues, UUID lastId) {
+        return new ProductCursor(ordering, keyValues.stream().map(String::valueOf).toList(), lastId);
+    }
+
+    /**
+     * Decode a token from a request; a null or blank token means "start from the first row".
+     */
+    public static ProductCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            List<String> parts = Arrays.asList(raw.split(String.valueOf(SEPARATOR), -1));
+            if (parts.size() < 2) {
+                throw new IllegalArgumentException("Too few cursor parts");
+            }
+            UUID lastId = UUID.fromString(parts.get(parts.size() - 1));
+            return new ProductCursor(parts.get(0), new ArrayList<>(parts.subList(1, parts.size() - 1)), lastId);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid pagination cursor");
+        }
+    }
+
+    public String encode() {
+        StringBuilder raw = new StringBuilder(ordering);
+        keys.forEach(key -> raw.append(SEPARATOR).append(key));
+        raw.append(SEPARATOR).append(lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Fail fast when a cursor issued for one ordering is replayed against another.
+     */
+    public void requireOrdering(String expected, int keyCount) {
+        if (!ordering.equals(expected) || keys.size() != keyCount) {
+            throw new BadRequestException("Pagination cursor does not match the requested sort order");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Flattened, immutable view of an active product as held by the in-memory search index.
+ * Carries the searchable text, filterable attribute values (by attribute id) and every
+ * column the faceted filters and sorts need,
+ * so a search can be answered without touching the database.
+ */
+public record ProductDocument(
+        UUID id,
+        String sku,
+        String name,
+        String description,
+        List<String> tags,
+        Map<UUID, String> attributes,
+        UUID categoryId,
+        UUID brandId,
+        BigDecimal price,
+        BigDecimal compareAtPrice,
+        BigDecimal averageRating,
+        int stockQuantity,
+        int soldCount,
+        LocalDateTime createdAt) {
+
+    public static ProductDocument from(Product product, List<String> tags, Map<UUID, String> attributes) {
+        return new ProductDocument(
+                product.getId(),
+                product.getSku(),
+                product.getName(),
+                product.getDescription(),
+                List.copyOf(tags),
+                Map.copyOf(attributes),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getBrand() != null ? product.getBrand().getId() : null,
+                product.getPrice(),
+                product.getCompareAtPrice(),
+                product.getAverageRating() != null ? product.getAverageRating() : BigDecimal.ZERO,
+                product.getStockQuantity() != null ? product.getStockQuantity() : 0,
+                product.getSoldCount() != null ? product.getSoldCount() : 0,
+                product.getCreatedAt());
+    }
+
+    public boolean inStock() {
+        return stockQuantity > 0;
+    }
+
+    public boolean onSale() {
+        return compareAtPrice != null && price != null && compareAtPrice.compareTo(price) > 0;
+    }
+}
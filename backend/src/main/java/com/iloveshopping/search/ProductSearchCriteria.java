@@ -0,0 +1,180 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.exception.BadRequestException;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Keyword and faceted filter set accepted by product search.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class ProductSearchCriteria {
+
+    private final String query;
+    private final UUID categoryId;
+    /**
+     * {@code categoryId} and the ids of every category below it, resolved by the service from the
+     * category tree. Derived from {@code categoryId}, so it is not part of the signature.
+     */
+    private final Set<UUID> categorySubtree;
+    private final UUID brandId;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final BigDecimal minRating;
+    private final Boolean inStock;
+    private final Boolean onSale;
+    /**
+     * Filterable attribute values by attribute id: any listed value of an attribute matches,
+     * and every listed attribute must match.
+     */
+    private final Map<UUID, Set<String>> attributes;
+    private final SearchMode mode;
+
+    /**
+     * Parse {@code attributeId:value} request parameters into an attribute filter map.
+     */
+    public static Map<UUID, Set<String>> parseAttributes(List<String> filters) {
+        Map<UUID, Set<String>> attributes = new TreeMap<>();
+        if (filters == null) {
+            return attributes;
+        }
+        for (String filter : filters) {
+            int separator = filter.indexOf(':');
+            if (separator <= 0 || separator == filter.length() - 1) {
+                throw new BadRequestException("Attribute filter must be attributeId:value");
+            }
+            try {
+                UUID attributeId = UUID.fromString(filter.substring(0, separator).trim());
+                attributes.computeIfAbsent(attributeId, id -> new LinkedHashSet<>())
+                        .add(filter.substring(separator + 1).trim());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid attribute id in filter: " + filter);
+            }
+        }
+        return attributes;
+    }
+
+    public boolean hasKeyword() {
+        return query != null && !query.isBlank();
+    }
+
+    public boolean hasAttributeFilters() {
+        return attributes != null && !attributes.isEmpty();
+    }
+
+    /**
+     * Canonical key of the filter set: equal for criteria that select the same products,
+     * regardless of keyword case or spacing. The search mode is not part of the key.
+     */
+    public String signature() {
+        StringJoiner joiner = new StringJoiner("|");
+        if (hasKeyword()) {
+            joiner.add("q=" + query.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " "));
+        }
+        if (categoryId != null) {
+            joiner.add("c=" + categoryId);
+        }
+        if (brandId != null) {
+            joiner.add("b=" + brandId);
+        }
+        if (minPrice != null) {
+            joiner.add("min=" + minPrice.stripTrailingZeros().toPlainString());
+        }
+        if (maxPrice != null) {
+            joiner.add("max=" + maxPrice.stripTrailingZeros().toPlainString());
+        }
+        if (minRating != null) {
+            joiner.add("r=" + minRating.stripTrailingZeros().toPlainString());
+        }
+        if (Boolean.TRUE.equals(inStock)) {
+            joiner.add("stock");
+        }
+        if (Boolean.TRUE.equals(onSale)) {
+            joiner.add("sale");
+        }
+        if (hasAttributeFilters()) {
+            new TreeMap<>(attributes).forEach((attributeId, values) ->
+                    joiner.add("a=" + attributeId + ":" + String.join(",", new TreeSet<>(values))));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Evaluate the non-keyword filters against an indexed document.
+     */
+    public boolean matches(ProductDocument doc) {
+        if (categoryId != null && !inCategory(doc.categoryId())) {
+            return false;
+        }
+        if (brandId != null && !brandId.equals(doc.brandId())) {
+            return false;
+        }
+        if (!matchesPrice(doc) || !matchesRating(doc)) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(inStock) && !doc.inStock()) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(onSale) && !doc.onSale()) {
+            return false;
+        }
+        return matchesAttributes(doc);
+    }
+
+    /**
+     * Whether a product in the given category passes the category filter, subcategories included
+     * once the subtree is resolved.
+     */
+    public boolean inCategory(UUID productCategoryId) {
+        if (categoryId == null) {
+            return true;
+        }
+        return categorySubtree != null
+                ? productCategoryId != null && categorySubtree.contains(productCategoryId)
+                : categoryId.equals(productCategoryId);
+    }
+
+    public boolean matchesPrice(ProductDocument doc) {
+        return (minPrice == null || (doc.price() != null && doc.price().compareTo(minPrice) >= 0))
+                && (maxPrice == null || (doc.price() != null && doc.price().compareTo(maxPrice) <= 0));
+    }
+
+    public boolean matchesRating(ProductDocument doc) {
+        return minRating == null || doc.averageRating().compareTo(minRating) >= 0;
+    }
+
+    /**
+     * Whether the document has an accepted value for every filtered attribute.
+     */
+    public boolean matchesAttributes(ProductDocument doc) {
+        if (!hasAttributeFilters()) {
+            return true;
+        }
+        for (Map.Entry<UUID, Set<String>> filter : attributes.entrySet()) {
+            String value = doc.attributes().get(filter.getKey());
+            if (value == null || !filter.getValue().contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The non-keyword filters, each of which is also a facet.
+     */
+    public enum Filter {
+        CATEGORY, BRAND, PRICE, RATING, IN_STOCK, ON_SALE, ATTRIBUTES
+    }
+}
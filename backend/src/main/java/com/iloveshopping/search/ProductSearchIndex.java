@@ -0,0 +1,684 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.entity.Product;
+import com.iloveshopping.event.AttributeChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.SearchIndexUpdatedEvent;
+import com.iloveshopping.repository.ProductRepository;
+import com.iloveshopping.search.ProductSearchCriteria.Filter;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over active products with BM25 relevance scoring.
+ *
+ * Name, SKU, tags and description are indexed as separate fields with their own
+ * postings and length statistics; a document's score is the boosted sum of the
+ * per-field BM25 scores. Every query term must match at least one field, and the
+ * last term also matches as a prefix so partially typed words still hit. When no
+ * product matches the query exactly, each term without exact hits is expanded to the
+ * indexed terms within a small edit distance found through {@link TermTrigrams}.
+ * Non-keyword filters and facet counts run on {@link ProductBitmaps} over the same
+ * document ordinals, which are maintained alongside the postings on every change.
+ *
+ * The index is built from {@link ProductRepository} once the application is ready,
+ * kept current from {@link ProductChangedEvent}s and periodically rebuilt to pick up
+ * changes that bypass the persistence context (bulk updates, tag-only edits).
+ * Each applied change is announced with a {@link SearchIndexUpdatedEvent}.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_MATCH_WEIGHT = 0.8;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final double FUZZY_MATCH_WEIGHT = 0.6;
+    private static final int MAX_FUZZY_EXPANSIONS = 8;
+
+    enum Field {
+        NAME(3.0), SKU(2.5), TAGS(2.0), DESCRIPTION(1.0);
+
+        final double boost;
+
+        Field(double boost) {
+            this.boost = boost;
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final boolean fuzzy;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<UUID> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private IndexData data = new IndexData();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.search.index.enabled:true}") boolean enabled,
+            @Value("${app.search.index.batch-size:1000}") int batchSize,
+            @Value("${app.search.index.fuzzy:true}") boolean fuzzy) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.fuzzy = fuzzy;
+    }
+
+    /**
+     * Whether the index has completed its initial build and can answer queries.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.index.rebuild-interval:PT30M}",
+            initialDelayString = "${app.search.index.rebuild-interval:PT30M}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Build a fresh index from the database and swap it in.
+     * Searches keep using the previous index until the swap.
+     */
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        changedDuringRebuild.clear();
+        try {
+            long start = System.currentTimeMillis();
+            IndexData fresh = new IndexData();
+            Map<UUID, List<String>> tags = loadActiveTags();
+            Map<UUID, Map<UUID, String>> attributes = loadActiveAttributes();
+
+            int page = 0;
+            boolean hasNext = true;
+            while (hasNext) {
+                PageRequest request = PageRequest.of(page++, batchSize, Sort.by("id"));
+                hasNext = Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+                    Page<Product> batch = productRepository.findByIsActiveTrue(request);
+                    batch.forEach(product -> fresh.put(ProductDocument.from(product,
+                            tags.getOrDefault(product.getId(), List.of()),
+                            attributes.getOrDefault(product.getId(), Map.of()))));
+                    return batch.hasNext();
+                }));
+            }
+
+            lock.writeLock().lock();
+            try {
+                data = fresh;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Product search index built: {} products in {} ms",
+                    fresh.liveDocs, System.currentTimeMillis() - start);
+            eventPublisher.publishEvent(new SearchIndexUpdatedEvent(null));
+        } catch (Exception e) {
+            log.error("Failed to build product search index", e);
+        } finally {
+            rebuilding.set(false);
+        }
+
+        // Changes committed while we were reading may be missing from the fresh snapshot
+        for (UUID id : changedDuringRebuild) {
+            refresh(id);
+        }
+        changedDuringRebuild.clear();
+    }
+
+    @Async
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.productId());
+        }
+        if (event.isDeleted()) {
+            remove(event.productId());
+        } else {
+            refresh(event.productId());
+        }
+        eventPublisher.publishEvent(new SearchIndexUpdatedEvent(event));
+    }
+
+    /**
+     * Attribute value edits re-index the product, which updates its attribute bitmaps in place;
+     * a changed definition (for example a toggled filterable flag) needs a full rebuild.
+     */
+    @Async
+    @EventListener
+    public void onAttributeChanged(AttributeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isDefinitionChange()) {
+            rebuild();
+            return;
+        }
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.productId());
+        }
+        refresh(event.productId());
+        eventPublisher.publishEvent(new SearchIndexUpdatedEvent(event));
+    }
+
+    /**
+     * Reload one product from the database and re-index it, or drop it if it is no longer active.
+     */
+    public void refresh(UUID productId) {
+        try {
+            Optional<ProductDocument> doc = readOnlyTransaction.execute(status ->
+                    productRepository.findById(productId)
+                            .filter(product -> Boolean.TRUE.equals(product.getIsActive()))
+                            .map(product -> ProductDocument.from(product,
+                                    productRepository.findTagNamesByProductId(productId),
+                                    toAttributeMap(productRepository.findFilterableAttributeValuesByProductId(productId)))));
+            if (doc != null && doc.isPresent()) {
+                upsert(doc.get());
+            } else {
+                remove(productId);
+            }
+        } catch (Exception e) {
+            log.error("Failed to refresh product {} in search index", productId, e);
+        }
+    }
+
+    public void upsert(ProductDocument doc) {
+        lock.writeLock().lock();
+        try {
+            data.put(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            data.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Run a keyword query, apply the non-keyword filters in memory and return one page of ordered ids.
+     */
+    public SearchHits search(ProductSearchCriteria criteria, ProductSort sort, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<ScoredDoc> matches = match(criteria);
+            matches.sort(ordering(sort, isScored(criteria, sort)));
+
+            List<UUID> ids = new ArrayList<>(Math.min(limit, matches.size()));
+            for (long i = offset; i < matches.size() && ids.size() < limit; i++) {
+                ids.add(matches.get((int) i).doc().id());
+            }
+            return new SearchHits(ids, matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset variant of {@link #search}: return the page that starts strictly after {@code after}.
+     */
+    public CursorHits seek(ProductSearchCriteria criteria, ProductSort sort, ProductCursor after, int limit) {
+        boolean scored = isScored(criteria, sort);
+        String ordering = ProductCursor.orderingFor(sort, scored);
+        if (after != null) {
+            after.requireOrdering(ordering, scored ? 1 : sort.keys().size());
+        }
+
+        lock.readLock().lock();
+        try {
+            List<ScoredDoc> matches = match(criteria);
+            matches.sort(ordering(sort, scored));
+
+            int start = after == null ? 0 : firstAfter(matches, sort, scored, after);
+            int end = Math.min(matches.size(), start + limit);
+            List<UUID> ids = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                ids.add(matches.get(i).doc().id());
+            }
+
+            ProductCursor next = null;
+            if (end < matches.size() && end > start) {
+                ScoredDoc last = matches.get(end - 1);
+                List<?> keys = scored
+                        ? List.of(last.score())
+                        : sort.keys().stream().map(key -> key.valueOf(last.doc())).toList();
+                next = ProductCursor.after(ordering, keys, last.doc().id());
+            }
+            return new CursorHits(ids, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Disjunctive facet counts for the criteria, computed as bitmap intersections between the
+     * keyword matches, the other active filters and each facet value.
+     */
+    public FacetCounts facets(ProductSearchCriteria criteria) {
+        FacetCounts counts = new FacetCounts();
+        lock.readLock().lock();
+        try {
+            ProductBitmaps bitmaps = data.bitmaps;
+            Map<Integer, Double> scores = keywordScores(criteria);
+            RoaringBitmap base = scores == null ? bitmaps.live() : toBitmap(scores.keySet());
+            RoaringBitmap all = RoaringBitmap.and(base, bitmaps.filter(criteria, null, null, data::document));
+            counts.addTotal(all.getCardinality());
+
+            RoaringBitmap byCategory = criteria.getCategoryId() != null
+                    ? RoaringBitmap.and(base, bitmaps.filter(criteria, Filter.CATEGORY, null, data::document))
+                    : all;
+            bitmaps.categories().forEach((categoryId, bitmap) ->
+                    counts.addCategory(categoryId, RoaringBitmap.andCardinality(byCategory, bitmap)));
+
+            RoaringBitmap byBrand = criteria.getBrandId() != null
+                    ? RoaringBitmap.and(base, bitmaps.filter(criteria, Filter.BRAND, null, data::document))
+                    : all;
+            bitmaps.brands().forEach((brandId, bitmap) ->
+                    counts.addBrand(brandId, RoaringBitmap.andCardinality(byBrand, bitmap)));
+
+            RoaringBitmap byPrice = criteria.getMinPrice() != null || criteria.getMaxPrice() != null
+                    ? RoaringBitmap.and(base, bitmaps.filter(criteria, Filter.PRICE, null, data::document))
+                    : all;
+            for (int band = 0; band < FacetCounts.PRICE_BOUNDS.size(); band++) {
+                counts.addPriceBucket(band, RoaringBitmap.andCardinality(byPrice, bitmaps.priceBand(band)));
+            }
+
+            RoaringBitmap byRating = criteria.getMinRating() != null
+                    ? RoaringBitmap.and(base, bitmaps.filter(criteria, Filter.RATING, null, data::document))
+                    : all;
+            for (int i = 0; i < FacetCounts.RATING_THRESHOLDS.size(); i++) {
+                RoaringBitmap rated = bitmaps.ratedAtLeast(FacetCounts.RATING_THRESHOLDS.get(i));
+                counts.addRating(i, RoaringBitmap.andCardinality(byRating, rated));
+            }
+
+            RoaringBitmap byStock = Boolean.TRUE.equals(criteria.getInStock())
+                    ? RoaringBitmap.and(base, bitmaps.filter(criteria, Filter.IN_STOCK, null, data::document))
+                    : all;
+            counts.addInStock(RoaringBitmap.andCardinality(byStock, bitmaps.inStock()));
+
+            RoaringBitmap bySale = Boolean.TRUE.equals(criteria.getOnSale())
+                    ? RoaringBitmap.and(base, bitmaps.filter(criteria, Filter.ON_SALE, null, data::document))
+                    : all;
+            counts.addOnSale(RoaringBitmap.andCardinality(bySale, bitmaps.onSale()));
+
+            bitmaps.attributes().forEach((attributeId, values) -> {
+                boolean filtered = criteria.hasAttributeFilters() && criteria.getAttributes().containsKey(attributeId);
+                RoaringBitmap byAttribute = filtered
+                        ? RoaringBitmap.and(base, bitmaps.filter(criteria, null, attributeId, data::document))
+                        : all;
+                values.forEach((value, bitmap) -> counts.addAttributeValue(
+                        attributeId, value, RoaringBitmap.andCardinality(byAttribute, bitmap)));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    private List<ScoredDoc> match(ProductSearchCriteria criteria) {
+        List<ScoredDoc> matches = new ArrayList<>();
+        Map<Integer, Double> scores = keywordScores(criteria);
+        RoaringBitmap allowed = data.bitmaps.filter(criteria, null, null, data::document);
+
+        if (scores == null) {
+            allowed.forEach((int ordinal) -> matches.add(new ScoredDoc(data.document(ordinal), 0)));
+            return matches;
+        }
+        for (Map.Entry<Integer, Double> scored : scores.entrySet()) {
+            if (allowed.contains(scored.getKey())) {
+                matches.add(new ScoredDoc(data.document(scored.getKey()), scored.getValue()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Summed BM25 scores by ordinal for the documents matching every query term,
+     * or null when there is no keyword and every document matches.
+     * Falls back to typo-tolerant matching when the exact terms match nothing.
+     */
+    private Map<Integer, Double> keywordScores(ProductSearchCriteria criteria) {
+        if (!criteria.hasKeyword()) {
+            return null;
+        }
+        List<String> terms = TextAnalyzer.analyze(criteria.getQuery());
+        if (terms.isEmpty()) {
+            // Only stop words or punctuation: nothing was indexed under them, as websearch_to_tsquery finds nothing
+            return new HashMap<>();
+        }
+
+        Map<Integer, Double> scores = intersectTerms(terms, false);
+        if (scores.isEmpty() && fuzzy) {
+            scores = intersectTerms(terms, true);
+        }
+        return scores;
+    }
+
+    private Map<Integer, Double> intersectTerms(List<String> terms, boolean fuzzyFallback) {
+        Map<Integer, Double> scores = null;
+        for (int i = 0; i < terms.size(); i++) {
+            boolean last = i == terms.size() - 1;
+            Map<Integer, Double> termScores = fuzzyFallback
+                    ? data.scoreTermFuzzy(terms.get(i), last)
+                    : data.scoreTerm(terms.get(i), last);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Integer, Double> termMatches = termScores;
+                scores.keySet().retainAll(termMatches.keySet());
+                scores.replaceAll((ordinal, score) -> score + termMatches.get(ordinal));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private static RoaringBitmap toBitmap(Set<Integer> ordinals) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        ordinals.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static boolean isScored(ProductSearchCriteria criteria, ProductSort sort) {
+        return sort == ProductSort.RELEVANCE && criteria.hasKeyword();
+    }
+
+    /**
+     * Keyword relevance orders by score then id, both descending, matching the FTS keyset order.
+     */
+    private static Comparator<ScoredDoc> ordering(ProductSort sort, boolean scored) {
+        if (!scored) {
+            return Comparator.comparing(ScoredDoc::doc, sort.comparator());
+        }
+        return Comparator.comparingDouble(ScoredDoc::score)
+                .thenComparing(scoredDoc -> scoredDoc.doc().id(), ProductSort::compareIds)
+                .reversed();
+    }
+
+    /**
+     * Binary search for the first match positioned strictly after the cursor in the sorted list.
+     */
+    private static int firstAfter(List<ScoredDoc> matches, ProductSort sort, boolean scored, ProductCursor after) {
+        int low = 0;
+        int high = matches.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isAfter(matches.get(mid), sort, scored, after)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isAfter(ScoredDoc candidate, ProductSort sort, boolean scored, ProductCursor after) {
+        int cmp;
+        if (scored) {
+            cmp = Double.compare(candidate.score(), Double.parseDouble(after.keys().get(0)));
+            if (cmp == 0) {
+                cmp = ProductSort.compareIds(candidate.doc().id(), after.lastId());
+            }
+            return cmp < 0;
+        }
+        cmp = 0;
+        for (int i = 0; i < sort.keys().size() && cmp == 0; i++) {
+            ProductSort.SortKey key = sort.keys().get(i);
+            Comparable value = key.valueOf(candidate.doc());
+            Object bound = key.parse(after.keys().get(i));
+            cmp = value == null ? -1 : value.compareTo(bound);
+        }
+        if (cmp == 0) {
+            cmp = ProductSort.compareIds(candidate.doc().id(), after.lastId());
+        }
+        return sort.isDescending() ? cmp < 0 : cmp > 0;
+    }
+
+    private Map<UUID, List<String>> loadActiveTags() {
+        Map<UUID, List<String>> tags = new HashMap<>();
+        for (Object[] row : productRepository.findActiveProductTagNames()) {
+            tags.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return tags;
+    }
+
+    private Map<UUID, Map<UUID, String>> loadActiveAttributes() {
+        Map<UUID, Map<UUID, String>> attributes = new HashMap<>();
+        for (Object[] row : productRepository.findActiveFilterableAttributeValues()) {
+            attributes.computeIfAbsent((UUID) row[0], id -> new HashMap<>()).put((UUID) row[1], (String) row[2]);
+        }
+        return attributes;
+    }
+
+    private static Map<UUID, String> toAttributeMap(List<Object[]> rows) {
+        Map<UUID, String> attributes = new HashMap<>();
+        for (Object[] row : rows) {
+            attributes.put((UUID) row[0], (String) row[1]);
+        }
+        return attributes;
+    }
+
+    private record ScoredDoc(ProductDocument doc, double score) {}
+
+    private static final class Entry {
+        final ProductDocument doc;
+        final EnumMap<Field, Map<String, Integer>> termFrequencies = new EnumMap<>(Field.class);
+        final int[] lengths = new int[Field.values().length];
+
+        Entry(ProductDocument doc) {
+            this.doc = doc;
+            addField(Field.NAME, TextAnalyzer.analyze(doc.name()));
+            addField(Field.SKU, TextAnalyzer.analyzeSku(doc.sku()));
+            addField(Field.TAGS, TextAnalyzer.analyze(String.join(" ", doc.tags())));
+            addField(Field.DESCRIPTION, TextAnalyzer.analyze(doc.description()));
+        }
+
+        private void addField(Field field, List<String> terms) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            termFrequencies.put(field, frequencies);
+            lengths[field.ordinal()] = terms.size();
+        }
+    }
+
+    /**
+     * Mutable index state. Not thread-safe; guarded by the enclosing read/write lock.
+     */
+    private static final class IndexData {
+        final List<Entry> entries = new ArrayList<>();
+        final Map<UUID, Integer> ordinals = new HashMap<>();
+        final EnumMap<Field, TreeMap<String, Map<Integer, Integer>>> postings = new EnumMap<>(Field.class);
+        final long[] totalLengths = new long[Field.values().length];
+        final ProductBitmaps bitmaps = new ProductBitmaps();
+        final TermTrigrams trigrams = new TermTrigrams();
+        int liveDocs;
+
+        IndexData() {
+            for (Field field : Field.values()) {
+                postings.put(field, new TreeMap<>());
+            }
+        }
+
+        void put(ProductDocument doc) {
+            Integer ordinal = ordinals.get(doc.id());
+            if (ordinal != null) {
+                unlink(ordinal);
+            } else {
+                ordinal = entries.size();
+                entries.add(null);
+                ordinals.put(doc.id(), ordinal);
+            }
+
+            Entry entry = new Entry(doc);
+            entries.set(ordinal, entry);
+            for (Field field : Field.values()) {
+                TreeMap<String, Map<Integer, Integer>> dictionary = postings.get(field);
+                for (Map.Entry<String, Integer> tf : entry.termFrequencies.get(field).entrySet()) {
+                    dictionary.computeIfAbsent(tf.getKey(), term -> {
+                        trigrams.add(term);
+                        return new HashMap<>();
+                    }).put(ordinal, tf.getValue());
+                }
+                totalLengths[field.ordinal()] += entry.lengths[field.ordinal()];
+            }
+            bitmaps.add(ordinal, doc);
+            liveDocs++;
+        }
+
+        ProductDocument document(int ordinal) {
+            return entries.get(ordinal).doc;
+        }
+
+        void remove(UUID id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                unlink(ordinal);
+            }
+        }
+
+        private void unlink(int ordinal) {
+            Entry entry = entries.get(ordinal);
+            if (entry == null) {
+                return;
+            }
+            for (Field field : Field.values()) {
+                TreeMap<String, Map<Integer, Integer>> dictionary = postings.get(field);
+                for (String term : entry.termFrequencies.get(field).keySet()) {
+                    Map<Integer, Integer> list = dictionary.get(term);
+                    if (list != null) {
+                        list.remove(ordinal);
+                        if (list.isEmpty()) {
+                            dictionary.remove(term);
+                            trigrams.remove(term);
+                        }
+                    }
+                }
+                totalLengths[field.ordinal()] -= entry.lengths[field.ordinal()];
+            }
+            bitmaps.remove(ordinal, entry.doc);
+            entries.set(ordinal, null);
+            liveDocs--;
+        }
+
+        /**
+         * Sum of boosted BM25 scores for one query term across all fields, keyed by ordinal.
+         */
+        Map<Integer, Double> scoreTerm(String term, boolean prefix) {
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Field field : Field.values()) {
+                TreeMap<String, Map<Integer, Integer>> dictionary = postings.get(field);
+                addScores(scores, field, dictionary.get(term), 1.0);
+                if (prefix && term.length() >= 2) {
+                    NavigableMap<String, Map<Integer, Integer>> expansions =
+                            dictionary.subMap(term, false, term + Character.MAX_VALUE, false);
+                    int expanded = 0;
+                    for (Map<Integer, Integer> list : expansions.values()) {
+                        if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        addScores(scores, field, list, PREFIX_MATCH_WEIGHT);
+                    }
+                }
+            }
+            return scores;
+        }
+
+        /**
+         * Scores for a term, or when it has no exact hits, for its closest indexed spellings,
+         * discounted by edit distance.
+         */
+        Map<Integer, Double> scoreTermFuzzy(String term, boolean prefix) {
+            Map<Integer, Double> scores = scoreTerm(term, prefix);
+            if (!scores.isEmpty()) {
+                return scores;
+            }
+            for (TermTrigrams.Candidate candidate : trigrams.similar(term, MAX_FUZZY_EXPANSIONS)) {
+                double weight = Math.pow(FUZZY_MATCH_WEIGHT, candidate.distance());
+                for (Field field : Field.values()) {
+                    addScores(scores, field, postings.get(field).get(candidate.term()), weight);
+                }
+            }
+            return scores;
+        }
+
+        private void addScores(Map<Integer, Double> scores, Field field, Map<Integer, Integer> list, double weight) {
+            if (list == null || list.isEmpty() || liveDocs == 0) {
+                return;
+            }
+            double idf = Math.log(1 + (liveDocs - list.size() + 0.5) / (list.size() + 0.5));
+            double averageLength = Math.max(1.0, (double) totalLengths[field.ordinal()] / liveDocs);
+            for (Map.Entry<Integer, Integer> posting : list.entrySet()) {
+                int tf = posting.getValue();
+                int length = entries.get(posting.getKey()).lengths[field.ordinal()];
+                double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                scores.merge(posting.getKey(), weight * field.boost * idf * norm, Double::sum);
+            }
+        }
+    }
+}
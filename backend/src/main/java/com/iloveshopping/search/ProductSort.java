@@ -0,0 +1,150 @@
+package com.iloveshopping.search;
+
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sort orders supported by product listings and search.
+ * Each constant is a list of sort keys in a single direction with the product id as the
+ * final tie-breaker. The same definition drives the JPA {@link Sort}, the native ORDER BY
+ * and keyset predicate, and the in-memory ordering, so every path returns products in the
+ * same order and a cursor can be resumed on any of them.
+ *
+ * RELEVANCE means text relevance (BM25 or ts_rank_cd) when there is a keyword;
+ * without one it falls back to popularity.
+ */
+public enum ProductSort {
+
+    RELEVANCE(Sort.Direction.DESC, SortKey.SOLD_COUNT, SortKey.AVERAGE_RATING),
+    PRICE_ASC(Sort.Direction.ASC, SortKey.PRICE),
+    PRICE_DESC(Sort.Direction.DESC, SortKey.PRICE),
+    RATING(Sort.Direction.DESC, SortKey.AVERAGE_RATING),
+    NEWEST(Sort.Direction.DESC, SortKey.CREATED_AT),
+    BESTSELLING(Sort.Direction.DESC, SortKey.SOLD_COUNT),
+    NAME_ASC(Sort.Direction.ASC, SortKey.NAME),
+    NAME_DESC(Sort.Direction.DESC, SortKey.NAME);
+
+    /**
+     * A sortable product column with its entity property, SQL expression and in-memory value.
+     */
+    public enum SortKey {
+        PRICE("price", "p.price", ProductDocument::price, BigDecimal::new),
+        SOLD_COUNT("soldCount", "p.sold_count", ProductDocument::soldCount, Integer::valueOf),
+        AVERAGE_RATING("averageRating", "p.average_rating", ProductDocument::averageRating, BigDecimal::new),
+        CREATED_AT("createdAt", "p.created_at", ProductDocument::createdAt, LocalDateTime::parse),
+        NAME("name", "LOWER(p.name)", doc -> doc.name().toLowerCase(Locale.ROOT), value -> value);
+
+        private final String property;
+        private final String sql;
+        private final Function<ProductDocument, Comparable<?>> extractor;
+        private final Function<String, Object> parser;
+
+        SortKey(String property, String sql, Function<ProductDocument, Comparable<?>> extractor,
+                Function<String, Object> parser) {
+            this.property = property;
+            this.sql = sql;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        public String sql() {
+            return sql;
+        }
+
+        public Comparable<?> valueOf(ProductDocument doc) {
+            return extractor.apply(doc);
+        }
+
+        /**
+         * Parse a value previously rendered with {@link Object#toString()} back to its column type.
+         */
+        public Object parse(String value) {
+            return parser.apply(value);
+        }
+    }
+
+    private final Sort.Direction direction;
+    private final List<SortKey> keys;
+    private final Comparator<ProductDocument> comparator;
+
+    ProductSort(Sort.Direction direction, SortKey... keys) {
+        this.direction = direction;
+        this.keys = List.of(keys);
+        this.comparator = buildComparator(direction, this.keys);
+    }
+
+    /**
+     * Resolve the {@code sortBy}/{@code sortDir} request parameters.
+     * Rating, newest and best-selling are always descending; unknown values fall back to relevance.
+     */
+    public static ProductSort from(String sortBy, String sortDir) {
+        boolean desc = "desc".equalsIgnoreCase(sortDir);
+        return switch (sortBy != null ? sortBy.toLowerCase() : "relevance") {
+            case "price" -> desc ? PRICE_DESC : PRICE_ASC;
+            case "rating" -> RATING;
+            case "newest" -> NEWEST;
+            case "bestselling" -> BESTSELLING;
+            case "name" -> desc ? NAME_DESC : NAME_ASC;
+            default -> RELEVANCE;
+        };
+    }
+
+    public List<SortKey> keys() {
+        return keys;
+    }
+
+    public boolean isDescending() {
+        return direction.isDescending();
+    }
+
+    public Sort toSort() {
+        return Sort.by(keys.stream()
+                .map(key -> {
+                    Sort.Order order = new Sort.Order(direction, key.property);
+                    return key == SortKey.NAME ? order.ignoreCase() : order;
+                })
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * ORDER BY clause body for native queries over {@code products p}, with the id as final tie-breaker.
+     */
+    public String toSql() {
+        String dir = direction.isDescending() ? " DESC" : " ASC";
+        return keys.stream().map(key -> key.sql + dir).collect(Collectors.joining(", "))
+                + ", p.id" + dir;
+    }
+
+    public Comparator<ProductDocument> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Orders product ids as PostgreSQL orders uuid values: byte by byte, unsigned.
+     * {@link UUID#compareTo} compares the halves as signed longs and disagrees for ids with the high bit set.
+     */
+    public static int compareIds(UUID a, UUID b) {
+        int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<ProductDocument> buildComparator(Sort.Direction direction, List<SortKey> keys) {
+        Comparator<ProductDocument> ascending = null;
+        for (SortKey key : keys) {
+            Comparator<ProductDocument> byKey = Comparator.comparing(
+                    doc -> (Comparable) key.valueOf(doc), Comparator.nullsFirst(Comparator.naturalOrder()));
+            ascending = ascending == null ? byKey : ascending.thenComparing(byKey);
+        }
+        ascending = ascending.thenComparing(ProductDocument::id, ProductSort::compareIds);
+        return direction.isDescending() ? ascending.reversed() : ascending;
+    }
+}
@@ -0,0 +1,180 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.security.UserPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Captures keyword searches into {@code search_history} and {@code popular_searches}.
+ *
+ * Requests only offer an event to a bounded in-memory buffer and never wait on it; when the
+ * buffer is full the event is dropped and counted. A scheduled flusher drains the buffer in
+ * JDBC batches and folds each batch into one {@code search_count = search_count + n} upsert
+ * per distinct term. The history rows and the counts are written separately: a failed history
+ * batch still counts its searches, and counts that could not be written are carried into the
+ * next flush, up to {@code max-pending-terms} distinct terms.
+ */
+@Slf4j
+@Component
+public class SearchAnalyticsRecorder {
+
+    static final int MAX_TERM_LENGTH = 255;
+
+    private static final String INSERT_HISTORY =
+            "INSERT INTO search_history (user_id, search_term, results_count, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String UPSERT_POPULAR = """
+            INSERT INTO popular_searches (search_term, search_count, last_searched_at) VALUES (?, ?, ?)
+            ON CONFLICT (search_term) DO UPDATE
+            SET search_count = popular_searches.search_count + EXCLUDED.search_count,
+                last_searched_at = GREATEST(popular_searches.last_searched_at, EXCLUDED.last_searched_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPendingTerms;
+    private final BlockingQueue<SearchEvent> buffer;
+    private final TreeMap<String, TermTotal> pending = new TreeMap<>();
+    private final Counter recorded;
+    private final Counter dropped;
+    private final Counter failed;
+
+    public SearchAnalyticsRecorder(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.search.analytics.enabled:true}") boolean enabled,
+            @Value("${app.search.analytics.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${app.search.analytics.batch-size:500}") int batchSize,
+            @Value("${app.search.analytics.max-pending-terms:10000}") int maxPendingTerms) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPendingTerms = maxPendingTerms;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.recorded = meterRegistry.counter("search.analytics.events", "outcome", "recorded");
+        this.dropped = meterRegistry.counter("search.analytics.events", "outcome", "dropped");
+        this.failed = meterRegistry.counter("search.analytics.events", "outcome", "failed");
+        meterRegistry.gauge("search.analytics.buffer.size", buffer, BlockingQueue::size);
+    }
+
+    /**
+     * Queue a search for the next flush; drops it instead of blocking when the buffer is full.
+     */
+    public void record(String query, Long resultCount) {
+        if (!enabled) {
+            return;
+        }
+        String term = TextAnalyzer.normalize(query);
+        if (term.isEmpty()) {
+            return;
+        }
+        if (term.length() > MAX_TERM_LENGTH) {
+            term = term.substring(0, MAX_TERM_LENGTH);
+        }
+        SearchEvent event = new SearchEvent(currentUserId(), term, resultCount, Instant.now());
+        if (buffer.offer(event)) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Number of events dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return (long) dropped.count();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.analytics.flush-interval:PT5S}")
+    public synchronized void flush() {
+        List<SearchEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            writeHistory(batch);
+            for (SearchEvent event : batch) {
+                pending.merge(event.term(), new TermTotal(1, event.searchedAt()), TermTotal::plus);
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+        if (!pending.isEmpty()) {
+            writePopular();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void writeHistory(List<SearchEvent> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_HISTORY, batch, batch.size(), (ps, event) -> {
+                ps.setObject(1, event.userId());
+                ps.setString(2, event.term());
+                ps.setObject(3, event.resultCount() != null ? (int) Math.min(event.resultCount(), Integer.MAX_VALUE) : null);
+                ps.setTimestamp(4, Timestamp.from(event.searchedAt()));
+            });
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.error("Failed to write {} search history rows", batch.size(), e);
+        }
+    }
+
+    private void writePopular() {
+        // Sorted terms keep concurrent flushers from locking the same rows in different orders
+        List<Map.Entry<String, TermTotal>> rows = new ArrayList<>(pending.entrySet());
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_POPULAR, rows, rows.size(), (ps, row) -> {
+                ps.setString(1, row.getKey());
+                ps.setInt(2, row.getValue().count());
+                ps.setTimestamp(3, Timestamp.from(row.getValue().lastSearchedAt()));
+            });
+            pending.clear();
+        } catch (Exception e) {
+            // The driver sends an auto-commit batch as one implicit transaction, so nothing was counted
+            log.warn("Failed to update {} popular search terms, retrying on the next flush: {}",
+                    rows.size(), e.getMessage());
+            while (pending.size() > maxPendingTerms) {
+                Map.Entry<String, TermTotal> evicted = pending.pollLastEntry();
+                failed.increment(evicted.getValue().count());
+            }
+        }
+    }
+
+    private static UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+
+    record SearchEvent(UUID userId, String term, Long resultCount, Instant searchedAt) {}
+
+    record TermTotal(int count, Instant lastSearchedAt) {
+
+        TermTotal plus(TermTotal other) {
+            Instant latest = lastSearchedAt.isAfter(other.lastSearchedAt) ? lastSearchedAt : other.lastSearchedAt;
+            return new TermTotal(count + other.count, latest);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.iloveshopping.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of matching product ids, in result order, plus the total match count.
+ */
+public record SearchHits(List<UUID> ids, long total) {}
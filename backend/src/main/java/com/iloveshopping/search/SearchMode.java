@@ -0,0 +1,24 @@
+package com.iloveshopping.search;
+
+/**
+ * Engine used to answer keyword queries.
+ * INDEX uses the in-process BM25 index; FTS uses the PostgreSQL full-text index and ts_rank_cd.
+ */
+public enum SearchMode {
+    INDEX, FTS;
+
+    /**
+     * Parse a request parameter, returning null for blank or unknown values so the configured default applies.
+     */
+    public static SearchMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        for (SearchMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,210 @@
+package com.iloveshopping.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.event.AttributeChangedEvent;
+import com.iloveshopping.event.BrandChangedEvent;
+import com.iloveshopping.event.CategoryChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent.ProductState;
+import com.iloveshopping.event.ProductImageChangedEvent;
+import com.iloveshopping.event.SearchIndexUpdatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Normalized cache for search result pages.
+ *
+ * A result entry is keyed by the criteria signature, resolved engine, sort and page window and
+ * holds only the ordered product ids and the total; pages are hydrated through a separate
+ * per-product summary cache, so one product edit never invalidates the pages it appears on
+ * beyond their id lists. A product change drops only the entries whose category (subcategories
+ * included) and brand filters could include the product before or after the change, an attribute
+ * change only the entries filtering on that attribute, and a category change every entry with a
+ * category filter, since the subtree it covers may have moved.
+ *
+ * Summaries embed the brand and primary image of their product, so a brand change drops the
+ * summaries that name it and an image change drops its product's summary.
+ *
+ * Loads that overlap an invalidation are returned but not stored, so a slow query can never
+ * reinsert results computed from data older than the invalidation.
+ */
+@Component
+public class SearchResultCache {
+
+    private final boolean enabled;
+    private final Cache<String, CachedResult> results;
+    private final Cache<UUID, ProductResponse> summaries;
+    private final AtomicLong generation = new AtomicLong();
+
+    public SearchResultCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.search.result-cache.enabled:true}") boolean enabled,
+            @Value("${app.search.result-cache.ttl:PT2M}") Duration resultTtl,
+            @Value("${app.search.result-cache.max-entries:10000}") long maxResults,
+            @Value("${app.search.summary-cache.ttl:PT10M}") Duration summaryTtl,
+            @Value("${app.search.summary-cache.max-entries:50000}") long maxSummaries) {
+        this.enabled = enabled;
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(resultTtl)
+                .maximumSize(maxResults)
+                .recordStats()
+                .build();
+        this.summaries = Caffeine.newBuilder()
+                .expireAfterWrite(summaryTtl)
+                .maximumSize(maxSummaries)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "searchResults");
+        CaffeineCacheMetrics.monitor(meterRegistry, summaries, "productSummaries");
+    }
+
+    /**
+     * Canonical key of one result page.
+     */
+    public static String key(ProductSearchCriteria criteria, SearchMode mode, ProductSort sort, long offset, int limit) {
+        String engine = criteria.hasKeyword() && mode != null ? mode.name() : "-";
+        return sort.name() + "|" + engine + "|" + offset + "+" + limit + "|" + criteria.signature();
+    }
+
+    /**
+     * Cached page of ids for the key, or the loader's result, stored unless the catalog changed meanwhile.
+     */
+    public SearchHits getOrLoad(String key, ProductSearchCriteria criteria, Supplier<SearchHits> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        CachedResult cached = results.getIfPresent(key);
+        if (cached != null) {
+            return cached.hits();
+        }
+        long started = generation.get();
+        SearchHits hits = loader.get();
+        if (generation.get() == started) {
+            results.put(key, new CachedResult(hits, criteria,
+                    criteria.hasAttributeFilters() ? Set.copyOf(criteria.getAttributes().keySet()) : Set.of()));
+        }
+        return hits;
+    }
+
+    /**
+     * Summaries for the ids in the given order, loading the missing ones in one call.
+     * Ids the loader does not return (deleted products) are skipped.
+     */
+    public List<ProductResponse> getSummaries(List<UUID> ids,
+                                              Function<List<UUID>, Map<UUID, ProductResponse>> loader) {
+        if (!enabled) {
+            Map<UUID, ProductResponse> loaded = loader.apply(ids);
+            return ids.stream().map(loaded::get).filter(Objects::nonNull).toList();
+        }
+        long started = generation.get();
+        Map<UUID, ProductResponse> present = summaries.getAllPresent(ids);
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            if (!present.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        Map<UUID, ProductResponse> loaded = missing.isEmpty() ? Map.of() : loader.apply(missing);
+        if (!loaded.isEmpty() && generation.get() == started) {
+            summaries.putAll(loaded);
+        }
+
+        List<ProductResponse> ordered = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            ProductResponse summary = present.containsKey(id) ? present.get(id) : loaded.get(id);
+            if (summary != null) {
+                ordered.add(summary);
+            }
+        }
+        return ordered;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        summaries.invalidate(event.productId());
+        evictScope(event);
+    }
+
+    @EventListener
+    public void onAttributeChanged(AttributeChangedEvent event) {
+        generation.incrementAndGet();
+        evictAttribute(event.attributeId());
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        generation.incrementAndGet();
+        results.asMap().values().removeIf(entry -> entry.criteria().getCategoryId() != null);
+    }
+
+    @EventListener
+    public void onBrandChanged(BrandChangedEvent event) {
+        generation.incrementAndGet();
+        summaries.asMap().values().removeIf(summary -> summary.getBrand() != null
+                && event.brandId().equals(summary.getBrand().getId()));
+    }
+
+    @EventListener
+    public void onProductImageChanged(ProductImageChangedEvent event) {
+        generation.incrementAndGet();
+        summaries.invalidate(event.productId());
+    }
+
+    /**
+     * The index applies changes asynchronously, so entries computed from it between the change
+     * and this event are evicted a second time.
+     */
+    @EventListener
+    public void onSearchIndexUpdated(SearchIndexUpdatedEvent event) {
+        generation.incrementAndGet();
+        if (event.isRebuild()) {
+            results.invalidateAll();
+        } else if (event.change() instanceof ProductChangedEvent change) {
+            evictScope(change);
+        } else if (event.change() instanceof AttributeChangedEvent change) {
+            evictAttribute(change.attributeId());
+        }
+    }
+
+    public long resultCount() {
+        return results.estimatedSize();
+    }
+
+    private void evictScope(ProductChangedEvent event) {
+        Set<UUID> categories = new HashSet<>();
+        Set<UUID> brands = new HashSet<>();
+        for (ProductState state : new ProductState[]{event.before(), event.after()}) {
+            if (state != null) {
+                categories.add(state.categoryId());
+                brands.add(state.brandId());
+            }
+        }
+        results.asMap().values().removeIf(entry ->
+                categories.stream().anyMatch(entry.criteria()::inCategory)
+                        && (entry.criteria().getBrandId() == null || brands.contains(entry.criteria().getBrandId())));
+    }
+
+    private void evictAttribute(UUID attributeId) {
+        results.asMap().values().removeIf(entry -> entry.attributeIds().contains(attributeId));
+    }
+
+    private record CachedResult(SearchHits hits, ProductSearchCriteria criteria, Set<UUID> attributeIds) {}
+}
@@ -0,0 +1,169 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Autocomplete over product, brand, category and tag names and the most frequent searches.
+ *
+ * Suggestions come from an immutable {@link SuggestionTrie} whose nodes hold their
+ * top-k completions ranked by popularity (units sold, weighted above views, and how
+ * often a term was searched). Every word suffix of a name is a key, so "lap" completes
+ * "Gaming Laptop 15". Searched terms come from {@code popular_searches} and are only
+ * suggested once they have been searched often enough and have found products.
+ * Catalog changes mark the trie stale; a scheduled job builds a fresh trie and swaps
+ * the reference, so lookups never wait for a rebuild, and rebuilds it at least every
+ * {@code max-age} to pick up new searches.
+ */
+@Slf4j
+@Component
+public class SuggestionIndex {
+
+    /**
+     * One sale counts as much as this many product views.
+     */
+    private static final long SOLD_WEIGHT = 20;
+
+    /**
+     * One search for a term counts as much as this many product views.
+     */
+    private static final long SEARCH_WEIGHT = 10;
+
+    private static final String POPULAR_SEARCHES = """
+            SELECT p.search_term, p.search_count FROM popular_searches p
+            WHERE p.search_count >= ?
+              AND EXISTS (SELECT 1 FROM search_history h WHERE h.search_term = p.search_term AND h.results_count > 0)
+            ORDER BY p.search_count DESC
+            LIMIT ?
+            """;
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int maxSuggestions;
+    private final int popularSearches;
+    private final int minSearchCount;
+    private final long maxAgeMillis;
+
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile SuggestionTrie trie = SuggestionTrie.empty();
+    private volatile long builtAt;
+
+    public SuggestionIndex(
+            ProductRepository productRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.search.suggestions.enabled:true}") boolean enabled,
+            @Value("${app.search.suggestions.max-results:10}") int maxSuggestions,
+            @Value("${app.search.suggestions.popular-searches:500}") int popularSearches,
+            @Value("${app.search.suggestions.min-search-count:3}") int minSearchCount,
+            @Value("${app.search.suggestions.max-age:PT15M}") Duration maxAge) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxSuggestions = maxSuggestions;
+        this.popularSearches = popularSearches;
+        this.minSearchCount = minSearchCount;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    /**
+     * Completions for a raw user prefix, most popular first.
+     */
+    public List<String> suggest(String prefix) {
+        String normalized = TextAnalyzer.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return trie.complete(normalized);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        stale.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.suggestions.refresh-interval:PT1M}",
+            initialDelayString = "${app.search.suggestions.refresh-interval:PT1M}")
+    public void refreshIfStale() {
+        if (stale.get() || System.currentTimeMillis() - builtAt >= maxAgeMillis) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Build a fresh trie from the catalog and swap it in.
+     */
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            // Cleared before reading so changes made during the build trigger another one
+            stale.set(false);
+            SuggestionTrie.Builder builder = new SuggestionTrie.Builder(maxSuggestions);
+            addAll(builder, productRepository.findActiveProductPopularity());
+            addAll(builder, productRepository.findBrandPopularity());
+            addAll(builder, productRepository.findCategoryPopularity());
+            addAll(builder, productRepository.findTagPopularity());
+            addPopularSearches(builder);
+            trie = builder.build();
+            builtAt = System.currentTimeMillis();
+            log.info("Suggestion trie built: {} keys in {} ms", trie.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            stale.set(true);
+            log.error("Failed to build suggestion trie", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Searched terms are an extra source; without them the catalog names still make a full trie.
+     */
+    private void addPopularSearches(SuggestionTrie.Builder builder) {
+        if (popularSearches <= 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.query(POPULAR_SEARCHES, rs -> {
+                String term = rs.getString(1);
+                long weight = rs.getLong(2) * SEARCH_WEIGHT;
+                List<String> tokens = TextAnalyzer.tokenize(term);
+                for (int i = 0; i < tokens.size(); i++) {
+                    builder.add(String.join(" ", tokens.subList(i, tokens.size())), term, weight);
+                }
+            }, minSearchCount, popularSearches);
+        } catch (Exception e) {
+            log.warn("Suggestion trie built without popular searches: {}", e.getMessage());
+        }
+    }
+
+    private static void addAll(SuggestionTrie.Builder builder, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            String display = (String) row[0];
+            long weight = ((Number) row[1]).longValue() * SOLD_WEIGHT + ((Number) row[2]).longValue();
+            List<String> tokens = TextAnalyzer.tokenize(display);
+            for (int i = 0; i < tokens.size(); i++) {
+                builder.add(String.join(" ", tokens.subList(i, tokens.size())), display, weight);
+            }
+        }
+    }
+}
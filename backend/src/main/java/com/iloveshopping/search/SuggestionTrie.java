@@ -0,0 +1,168 @@
+package com.iloveshopping.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable radix trie of autocomplete keys where every node stores its precomputed
+ * top-k completions, so a lookup walks the prefix once and returns a ready list.
+ *
+ * Keys are normalized phrases; each key maps to a display string and a weight, and
+ * several keys may point at the same display string (for example every word suffix
+ * of a product name). Build one with {@link Builder}; instances are safe to share
+ * between threads.
+ */
+public final class SuggestionTrie {
+
+    private static final SuggestionTrie EMPTY = new Builder(0).build();
+
+    private final Node root;
+    private final int size;
+
+    private SuggestionTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static SuggestionTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Number of distinct keys in the trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Best completions for a normalized prefix, highest weight first.
+     */
+    public List<String> complete(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.child(prefix.charAt(position));
+            if (child == null) {
+                return List.of();
+            }
+            String label = child.label;
+            int remaining = prefix.length() - position;
+            if (remaining <= label.length()) {
+                return label.startsWith(prefix.substring(position)) ? child.top : List.of();
+            }
+            if (!prefix.startsWith(label, position)) {
+                return List.of();
+            }
+            position += label.length();
+            node = child;
+        }
+        return node.top;
+    }
+
+    private static final class Node {
+        final String label;
+        final char[] firstChars;
+        final Node[] children;
+        final List<String> top;
+
+        Node(String label, char[] firstChars, Node[] children, List<String> top) {
+            this.label = label;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(firstChars, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    /**
+     * Collects weighted keys, then compresses single-child chains into radix edges
+     * and computes each node's top-k bottom-up.
+     */
+    public static final class Builder {
+
+        private final int topK;
+        private final MutableNode root = new MutableNode();
+        private int size;
+
+        public Builder(int topK) {
+            this.topK = topK;
+        }
+
+        /**
+         * Add a key; adding the same key again keeps the higher-weighted display string.
+         */
+        public Builder add(String key, String display, long weight) {
+            if (key == null || key.isEmpty()) {
+                return this;
+            }
+            MutableNode node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+            }
+            if (node.display == null) {
+                size++;
+            }
+            if (node.display == null || weight > node.weight) {
+                node.display = display;
+                node.weight = weight;
+            }
+            return this;
+        }
+
+        public SuggestionTrie build() {
+            return new SuggestionTrie(compress("", root, true).node, size);
+        }
+
+        private Compressed compress(String label, MutableNode node, boolean root) {
+            // Follow single-child chains without a terminal so each edge carries a whole label
+            StringBuilder edge = new StringBuilder(label);
+            while (!root && node.display == null && node.children.size() == 1) {
+                Map.Entry<Character, MutableNode> only = node.children.firstEntry();
+                edge.append(only.getKey());
+                node = only.getValue();
+            }
+
+            Map<String, Long> candidates = new HashMap<>();
+            if (node.display != null) {
+                candidates.merge(node.display, node.weight, Math::max);
+            }
+            char[] firstChars = new char[node.children.size()];
+            Node[] children = new Node[node.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> child : node.children.entrySet()) {
+                Compressed compressed = compress(String.valueOf(child.getKey()), child.getValue(), false);
+                firstChars[i] = child.getKey();
+                children[i++] = compressed.node;
+                compressed.weights.forEach((display, weight) -> candidates.merge(display, weight, Math::max));
+            }
+
+            Map<String, Long> top = new LinkedHashMap<>();
+            candidates.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(topK)
+                    .forEachOrdered(entry -> top.put(entry.getKey(), entry.getValue()));
+
+            Node compressed = new Node(edge.toString(), firstChars, children, List.copyOf(top.keySet()));
+            return new Compressed(compressed, top);
+        }
+
+        private record Compressed(Node node, Map<String, Long> weights) {}
+
+        private static final class MutableNode {
+            final TreeMap<Character, MutableNode> children = new TreeMap<>();
+            String display;
+            long weight;
+        }
+    }
+}
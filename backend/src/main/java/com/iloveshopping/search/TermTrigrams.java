@@ -0,0 +1,155 @@
+package com.iloveshopping.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over the terms of {@link ProductSearchIndex}, used to correct misspelled query terms.
+ *
+ * Each term is padded and split into character trigrams ("lap" gives "$$l", "$la", "lap", "ap$");
+ * a lookup only visits the terms that share a trigram with the query, keeps those within a
+ * length-dependent edit distance and ranks them by trigram similarity. Terms are reference-counted
+ * because the same term can appear in several fields. Not thread-safe; guarded by the owning
+ * index's lock.
+ */
+final class TermTrigrams {
+
+    /**
+     * Shorter query terms are too ambiguous to correct.
+     */
+    static final int MIN_TERM_LENGTH = 3;
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, Integer> references = new HashMap<>();
+
+    void add(String term) {
+        if (references.merge(term, 1, Integer::sum) == 1) {
+            for (String trigram : trigrams(term)) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+            }
+        }
+    }
+
+    void remove(String term) {
+        Integer count = references.get(term);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            references.put(term, count - 1);
+            return;
+        }
+        references.remove(term);
+        for (String trigram : trigrams(term)) {
+            Set<String> terms = postings.get(trigram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexed terms within {@link #maxEdits} of the query term, most similar first.
+     */
+    List<Candidate> similar(String term, int limit) {
+        int maxEdits = maxEdits(term);
+        if (maxEdits == 0) {
+            return List.of();
+        }
+        Set<String> queryTrigrams = trigrams(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<String> terms = postings.get(trigram);
+            if (terms != null) {
+                terms.forEach(candidate -> shared.merge(candidate, 1, Integer::sum));
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            if (candidate.equals(term) || Math.abs(candidate.length() - term.length()) > maxEdits) {
+                continue;
+            }
+            int distance = editDistance(term, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                // Dice coefficient over the padded trigram sets
+                int candidateTrigrams = candidate.length() + 1;
+                double similarity = 2.0 * entry.getValue() / (queryTrigrams.size() + candidateTrigrams);
+                candidates.add(new Candidate(candidate, distance, similarity));
+            }
+        }
+        candidates.sort(Comparator.comparingInt(Candidate::distance)
+                .thenComparing(Comparator.comparingDouble(Candidate::similarity).reversed())
+                .thenComparing(Candidate::term));
+        return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+    }
+
+    int size() {
+        return references.size();
+    }
+
+    /**
+     * One typo for terms up to five characters, two beyond that.
+     */
+    static int maxEdits(String term) {
+        if (term.length() < MIN_TERM_LENGTH) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Optimal string alignment distance (adjacent transpositions count as one edit),
+     * abandoned as soon as every cell of a row exceeds {@code bound}.
+     */
+    static int editDistance(String a, String b, int bound) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "$$" + term + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    record Candidate(String term, int distance, double similarity) {}
+}
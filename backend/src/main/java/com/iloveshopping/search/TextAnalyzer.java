@@ -0,0 +1,120 @@
+package com.iloveshopping.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer and light English stemmer shared by indexing and query parsing.
+ * Both sides must go through the same analyzer so that terms line up.
+ */
+public final class TextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from",
+            "in", "is", "it", "of", "on", "or", "the", "to", "with");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Split free text into lower-cased, stemmed terms with stop words removed.
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            if (!STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * SKUs are matched verbatim: the whole code plus its alphanumeric parts, no stemming.
+     */
+    public static List<String> analyzeSku(String sku) {
+        List<String> terms = new ArrayList<>();
+        if (sku == null || sku.isBlank()) {
+            return terms;
+        }
+        String normalized = sku.trim().toLowerCase(Locale.ROOT);
+        terms.add(normalized);
+        List<String> parts = tokenize(normalized);
+        if (parts.size() > 1) {
+            terms.addAll(parts);
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-case and collapse whitespace without stemming, for use as a stable cache or analytics key.
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : String.join(" ", tokenize(text));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Conservative suffix stripping: plurals, -ing/-ed and a trailing -e, so that
+     * "charging", "charged" and "charge" or "cases" and "case" collapse together.
+     */
+    static String stem(String term) {
+        if (term.length() <= 3 || !Character.isLetter(term.charAt(term.length() - 1))) {
+            return term;
+        }
+        String s = term;
+        if (s.endsWith("sses")) {
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("ies") && s.length() > 4) {
+            s = s.substring(0, s.length() - 3) + "y";
+        } else if (s.endsWith("es") && s.length() > 4 && endsWithSibilant(s.substring(0, s.length() - 2))) {
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("s") && !s.endsWith("ss") && !s.endsWith("us") && !s.endsWith("is")) {
+            s = s.substring(0, s.length() - 1);
+        }
+
+        if (s.endsWith("ing") && s.length() - 3 >= 3 && hasVowel(s, s.length() - 3)) {
+            s = s.substring(0, s.length() - 3);
+        } else if (s.endsWith("ed") && s.length() - 2 >= 3 && hasVowel(s, s.length() - 2)) {
+            s = s.substring(0, s.length() - 2);
+        }
+
+        if (s.endsWith("e") && s.length() > 3) {
+            s = s.substring(0, s.length() - 1);
+        }
+        return s;
+    }
+
+    private static boolean endsWithSibilant(String s) {
+        return s.endsWith("s") || s.endsWith("x") || s.endsWith("z") || s.endsWith("ch") || s.endsWith("sh");
+    }
+
+    private static boolean hasVowel(String s, int end) {
+        for (int i = 0; i < end; i++) {
+            if ("aeiouy".indexOf(s.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
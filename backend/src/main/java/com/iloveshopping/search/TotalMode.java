@@ -0,0 +1,10 @@
+package com.iloveshopping.search;
+
+/**
+ * How a paged listing reports its total.
+ * EXACT runs a COUNT per request; ESTIMATE returns a cached or planner-estimated total;
+ * NONE returns a slice with {@code hasNext} only.
+ */
+public enum TotalMode {
+    EXACT, ESTIMATE, NONE
+}
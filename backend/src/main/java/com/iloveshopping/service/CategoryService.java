@@ -1,78 +1,91 @@
 package com.iloveshopping.service;
 
+import com.iloveshopping.catalog.CategoryIndex;
+import com.iloveshopping.catalog.CategoryProductCounts;
+import com.iloveshopping.catalog.CategoryTree;
 import com.iloveshopping.dto.response.CategoryResponse;
-import com.iloveshopping.entity.Category;
 import com.iloveshopping.exception.ResourceNotFoundException;
-import com.iloveshopping.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Service for category management.
+ * Reads are answered from the in-memory {@link CategoryTree} snapshot and
+ * {@link CategoryProductCounts}.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
 
-    private final CategoryRepository categoryRepository;
+    private final CategoryIndex categoryIndex;
+    private final CategoryProductCounts productCounts;
 
     /**
      * Get all active categories.
      */
-    @Cacheable(value = "categories")
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findByIsActiveTrueOrderByDisplayOrder().stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return categoryIndex.tree().activeByDisplayOrder().stream()
+                .map(this::toResponse)
+                .toList();
     }
 
     /**
      * Get root categories with children.
      */
-    @Cacheable(value = "categoryTree")
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getCategoryTree() {
-        return categoryRepository.findRootCategories().stream()
-                .map(category -> CategoryResponse.fromEntity(category, true, 0))
-                .collect(Collectors.toList());
+        CategoryTree tree = categoryIndex.tree();
+        return tree.activeRoots().stream()
+                .map(root -> withChildren(tree, root))
+                .toList();
     }
 
     /**
      * Get category by ID.
      */
-    @Transactional(readOnly = true)
     public CategoryResponse getCategoryById(UUID id) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
-        return CategoryResponse.fromEntity(category, true, 0);
+        CategoryTree tree = categoryIndex.tree();
+        CategoryTree.Node category = tree.get(id);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category", "id", id);
+        }
+        return withChildren(tree, category);
     }
 
     /**
      * Get category by slug.
      */
-    @Transactional(readOnly = true)
     public CategoryResponse getCategoryBySlug(String slug) {
-        Category category = categoryRepository.findBySlug(slug)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "slug", slug));
-        return CategoryResponse.fromEntity(category, true, 0);
+        CategoryTree tree = categoryIndex.tree();
+        CategoryTree.Node category = tree.getBySlug(slug);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category", "slug", slug);
+        }
+        return withChildren(tree, category);
     }
 
     /**
      * Get subcategories of a category.
      */
-    @Transactional(readOnly = true)
     public List<CategoryResponse> getSubcategories(UUID parentId) {
-        return categoryRepository.findByParentId(parentId).stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return categoryIndex.tree().activeChildren(parentId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    private CategoryResponse withChildren(CategoryTree tree, CategoryTree.Node node) {
+        CategoryResponse response = toResponse(node);
+        response.setChildren(tree.activeChildren(node.id()).stream()
+                .map(child -> withChildren(tree, child))
+                .toList());
+        return response;
+    }
+
+    private CategoryResponse toResponse(CategoryTree.Node node) {
+        return CategoryResponse.fromNode(node, productCounts.rolledUp(node.id()), productCounts.direct(node.id()));
     }
 }
@@ -0,0 +1,67 @@
+package com.iloveshopping.service;
+
+import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.entity.Product;
+import com.iloveshopping.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles full product detail responses in a fixed number of queries.
+ *
+ * The products are loaded with their category and brand, then images, attribute values with
+ * their definitions, and tags are each initialized for all products at once by a separate fetch
+ * query. Fetching one collection per query avoids both per-product lazy loads and the cartesian
+ * product (and multiple-bag error) of joining every collection in one statement, so a page costs
+ * four queries whether it shows one product or a comparison of several.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductDetailLoader {
+
+    private final ProductRepository productRepository;
+
+    @Transactional(readOnly = true)
+    public Optional<ProductResponse> loadById(UUID id) {
+        return loadAll(List.of(id)).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductResponse> loadBySlug(String slug) {
+        return productRepository.findWithCategoryAndBrandBySlug(slug)
+                .map(product -> toResponses(List.of(product)).get(0));
+    }
+
+    /**
+     * Detail responses in the order of the given ids; unknown ids are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> loadAll(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Product> products = productRepository.findWithCategoryAndBrandByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return toResponses(ids.stream().distinct().map(products::get).filter(Objects::nonNull).toList());
+    }
+
+    private List<ProductResponse> toResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        // Each query initializes one collection on the already managed instances
+        productRepository.fetchImages(products);
+        productRepository.fetchAttributeValues(products);
+        productRepository.fetchTags(products);
+        return products.stream().map(ProductResponse::fromEntity).toList();
+    }
+}
@@ -1,24 +1,63 @@
 package com.iloveshopping.service;
 
+import com.iloveshopping.catalog.CategoryIndex;
+import com.iloveshopping.catalog.ProductViewCounter;
+import com.iloveshopping.catalog.TrendingProducts;
+import com.iloveshopping.dto.response.CachedPage;
+import com.iloveshopping.dto.response.CursorPage;
+import com.iloveshopping.dto.response.ProductFacetsResponse;
 import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.dto.response.SlicePage;
+import com.iloveshopping.entity.Brand;
+import com.iloveshopping.entity.Category;
+import com.iloveshopping.entity.CategoryClosure;
 import com.iloveshopping.entity.Product;
+import com.iloveshopping.entity.ProductAttribute;
+import com.iloveshopping.entity.ProductAttributeValue;
+import com.iloveshopping.exception.BadRequestException;
 import com.iloveshopping.exception.ResourceNotFoundException;
+import com.iloveshopping.repository.BrandRepository;
+import com.iloveshopping.repository.CategoryRepository;
+import com.iloveshopping.repository.ProductAttributeRepository;
 import com.iloveshopping.repository.ProductRepository;
+import com.iloveshopping.repository.ProductSummaryRow;
+import com.iloveshopping.repository.ProductVersion;
+import com.iloveshopping.search.CursorHits;
+import com.iloveshopping.search.FacetCounts;
+import com.iloveshopping.search.ProductCountEstimator;
+import com.iloveshopping.search.ProductCursor;
+import com.iloveshopping.search.ProductSearchCriteria;
+import com.iloveshopping.search.ProductSearchIndex;
+import com.iloveshopping.search.ProductSort;
+import com.iloveshopping.search.SearchAnalyticsRecorder;
+import com.iloveshopping.search.SearchHits;
+import com.iloveshopping.search.SearchMode;
+import com.iloveshopping.search.SearchResultCache;
+import com.iloveshopping.search.SuggestionIndex;
+import com.iloveshopping.search.TotalMode;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service for product management and search functionality.
@@ -28,15 +67,47 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int MAX_COMPARE_PRODUCTS = 10;
+
     private final ProductRepository productRepository;
+    private final ProductDetailLoader productDetailLoader;
+    private final CategoryRepository categoryRepository;
+    private final CategoryIndex categoryIndex;
+    private final ProductViewCounter productViewCounter;
+    private final TrendingProducts trendingProducts;
+    private final BrandRepository brandRepository;
+    private final ProductAttributeRepository productAttributeRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCountEstimator productCountEstimator;
+    private final SuggestionIndex suggestionIndex;
+    private final SearchAnalyticsRecorder searchAnalyticsRecorder;
+    private final SearchResultCache searchResultCache;
+
+    @Value("${app.search.engine:index}")
+    private String defaultSearchEngine;
 
     /**
      * Get all active products with pagination.
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
-        return productRepository.findByIsActiveTrue(pageable)
-                .map(ProductResponse::summary);
+        return toSummaryPage(productRepository.findActiveSummaries(pageable));
+    }
+
+    /**
+     * Get all active products, newest first, without an exact count.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> getAllProducts(Pageable pageable, TotalMode totalMode) {
+        return slice(ProductSearchCriteria.builder().build(), ProductSort.NEWEST, pageable, totalMode);
+    }
+
+    /**
+     * Get all active products, newest first, with keyset pagination.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getAllProducts(String cursor, int size) {
+        return seek(ProductSearchCriteria.builder().build(), ProductSort.NEWEST, cursor, size);
     }
 
     /**
@@ -44,108 +115,205 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public ProductResponse getProductById(UUID id) {
-        Product product = productRepository.findById(id)
+        ProductResponse product = productDetailLoader.loadById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
-        
-        // Increment view count asynchronously
-        productRepository.incrementViewCount(id);
-        
-        return ProductResponse.fromEntity(product);
+        recordView(product);
+        return product;
     }
 
     /**
      * Get product by slug.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public ProductResponse getProductBySlug(String slug) {
-        Product product = productRepository.findBySlug(slug)
+        ProductResponse product = productDetailLoader.loadBySlug(slug)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "slug", slug));
-        
-        productRepository.incrementViewCount(product.getId());
-        
-        return ProductResponse.fromEntity(product);
+        recordView(product);
+        return product;
     }
 
     /**
-     * Search products with faceted filtering.
+     * Get the validators of a product detail, without loading it.
      */
     @Transactional(readOnly = true)
-    public Page<ProductResponse> searchProducts(
-            String query,
-            UUID categoryId,
-            UUID brandId,
-            BigDecimal minPrice,
-            BigDecimal maxPrice,
-            BigDecimal minRating,
-            Boolean inStock,
-            Boolean onSale,
-            String sortBy,
-            String sortDir,
-            Pageable pageable) {
+    public ProductVersion getProductVersion(UUID id) {
+        return productRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+    }
 
-        // Build specification for filtering
-        Specification<Product> spec = Specification.where(isActive());
+    /**
+     * Get the validators of a product detail by slug, without loading it.
+     */
+    @Transactional(readOnly = true)
+    public ProductVersion getProductVersionBySlug(String slug) {
+        return productRepository.findVersionBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "slug", slug));
+    }
 
-        if (query != null && !query.isBlank()) {
-            spec = spec.and(searchByKeyword(query));
-        }
+    /**
+     * Count a view of a product detail the client revalidated instead of downloading again.
+     */
+    public void recordView(ProductVersion version) {
+        productViewCounter.record(version.id());
+        trendingProducts.recordView(version.id(), version.categoryId());
+    }
 
-        if (categoryId != null) {
-            spec = spec.and(hasCategory(categoryId));
+    /**
+     * Get full details for several products at once, in the requested order, for comparison pages.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getProductsForComparison(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("At least one product id is required");
         }
-
-        if (brandId != null) {
-            spec = spec.and(hasBrand(brandId));
+        if (ids.size() > MAX_COMPARE_PRODUCTS) {
+            throw new BadRequestException("At most " + MAX_COMPARE_PRODUCTS + " products can be compared");
         }
+        return productDetailLoader.loadAll(ids);
+    }
 
-        if (minPrice != null) {
-            spec = spec.and(priceGreaterThanOrEqual(minPrice));
-        }
+    /**
+     * Search products with faceted filtering.
+     * Keyword queries are answered by the in-memory search index once it is built, or by the
+     * PostgreSQL full-text index in FTS mode; either way only the final page is loaded as entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> searchProducts(
+            ProductSearchCriteria criteria,
+            String sortBy,
+            String sortDir,
+            Pageable pageable) {
 
-        if (maxPrice != null) {
-            spec = spec.and(priceLessThanOrEqual(maxPrice));
+        Page<ProductResponse> page = searchPage(criteria, ProductSort.from(sortBy, sortDir), pageable);
+        if (pageable.getPageNumber() == 0) {
+            recordSearch(criteria, page.getTotalElements());
         }
+        return page;
+    }
 
-        if (minRating != null) {
-            spec = spec.and(ratingGreaterThanOrEqual(minRating));
+    /**
+     * Search products without an exact count: a slice with {@code hasNext} and, if requested, an estimated total.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> searchProducts(
+            ProductSearchCriteria criteria,
+            String sortBy,
+            String sortDir,
+            Pageable pageable,
+            TotalMode totalMode) {
+        SlicePage<ProductResponse> slice = slice(criteria, ProductSort.from(sortBy, sortDir), pageable, totalMode);
+        if (pageable.getPageNumber() == 0) {
+            recordSearch(criteria, slice.isHasNext() ? slice.getTotalElements() : Long.valueOf(slice.getContent().size()));
         }
+        return slice;
+    }
 
-        if (Boolean.TRUE.equals(inStock)) {
-            spec = spec.and(inStock());
+    /**
+     * Search products with keyset pagination: the page after {@code cursor}, without a total count.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> searchProducts(
+            ProductSearchCriteria criteria,
+            String sortBy,
+            String sortDir,
+            String cursor,
+            int size) {
+        CursorPage<ProductResponse> page = seek(criteria, ProductSort.from(sortBy, sortDir), cursor, size);
+        if (cursor == null || cursor.isBlank()) {
+            recordSearch(criteria, page.isHasNext() ? null : Long.valueOf(page.getContent().size()));
         }
+        return page;
+    }
 
-        if (Boolean.TRUE.equals(onSale)) {
-            spec = spec.and(onSale());
+    /**
+     * Get facet counts for the same filter set as {@link #searchProducts}.
+     * Counted in one pass over the in-memory index when it can answer the query, otherwise in SQL.
+     */
+    @Transactional(readOnly = true)
+    public ProductFacetsResponse getSearchFacets(ProductSearchCriteria criteria) {
+        criteria = withCategorySubtree(criteria);
+        boolean fullText = criteria.hasKeyword() && resolveMode(criteria) == SearchMode.FTS;
+        FacetCounts counts = !fullText && productSearchIndex.isReady()
+                ? productSearchIndex.facets(criteria)
+                : productRepository.facetCounts(criteria);
+
+        Map<UUID, String> categoryNames = categoryRepository.findAllById(counts.getCategories().keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        Map<UUID, String> brandNames = brandRepository.findAllById(counts.getBrands().keySet()).stream()
+                .collect(Collectors.toMap(Brand::getId, Brand::getName));
+
+        List<ProductFacetsResponse.PriceRange> priceRanges = new ArrayList<>();
+        for (int bucket = 0; bucket < FacetCounts.PRICE_BOUNDS.size(); bucket++) {
+            priceRanges.add(ProductFacetsResponse.PriceRange.builder()
+                    .min(FacetCounts.PRICE_BOUNDS.get(bucket))
+                    .max(bucket + 1 < FacetCounts.PRICE_BOUNDS.size() ? FacetCounts.PRICE_BOUNDS.get(bucket + 1) : null)
+                    .count(counts.getPriceBucket(bucket))
+                    .build());
         }
 
-        // Build sort
-        Sort sort = buildSort(sortBy, sortDir);
-        Pageable pageableWithSort = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        List<ProductFacetsResponse.RatingBucket> ratings = new ArrayList<>();
+        for (int i = 0; i < FacetCounts.RATING_THRESHOLDS.size(); i++) {
+            ratings.add(ProductFacetsResponse.RatingBucket.builder()
+                    .minRating(FacetCounts.RATING_THRESHOLDS.get(i))
+                    .count(counts.getRating(i))
+                    .build());
+        }
 
-        return productRepository.findAll(spec, pageableWithSort)
-                .map(ProductResponse::summary);
+        List<ProductFacetsResponse.AttributeFacet> attributes = productAttributeRepository
+                .findAllById(counts.getAttributes().keySet()).stream()
+                .filter(attribute -> Boolean.TRUE.equals(attribute.getIsFilterable()))
+                .sorted(Comparator.comparing(ProductAttribute::getDisplayOrder))
+                .map(attribute -> ProductFacetsResponse.AttributeFacet.builder()
+                        .attributeId(attribute.getId())
+                        .name(attribute.getName())
+                        .displayName(attribute.getDisplayName())
+                        .values(toFacetValues(counts.getAttributes().get(attribute.getId()), Map.of()))
+                        .build())
+                .collect(Collectors.toList());
+
+        return ProductFacetsResponse.builder()
+                .total(counts.getTotal())
+                .categories(toFacetValues(counts.getCategories(), categoryNames))
+                .brands(toFacetValues(counts.getBrands(), brandNames))
+                .priceRanges(priceRanges)
+                .ratings(ratings)
+                .inStock(counts.getInStock())
+                .onSale(counts.getOnSale())
+                .attributes(attributes)
+                .build();
     }
 
     /**
-     * Get search suggestions based on prefix.
+     * Get search suggestions based on prefix, served from the in-memory suggestion trie.
      */
-    @Cacheable(value = "searchSuggestions", key = "#prefix")
-    @Transactional(readOnly = true)
     public List<String> getSearchSuggestions(String prefix) {
         if (prefix == null || prefix.length() < 2) {
             return List.of();
         }
-        return productRepository.findSearchSuggestions(prefix);
+        return suggestionIndex.suggest(prefix);
+    }
+
+    /**
+     * Run the first page of a keyword search the way the search endpoint does, to fill the result
+     * caches ahead of traffic; unlike a visitor's search it is not recorded.
+     */
+    @Transactional(readOnly = true)
+    public void preloadSearch(String query, int size) {
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder()
+                .query(query)
+                .attributes(ProductSearchCriteria.parseAttributes(null))
+                .mode(SearchMode.from(null))
+                .build();
+        searchPage(criteria, ProductSort.from("relevance", "asc"), PageRequest.of(0, size));
     }
 
     /**
-     * Get featured products.
+     * Get featured products, as a cacheable page; {@link CachedPage#toPage} rebuilds the page.
      */
-    @Cacheable(value = "featuredProducts")
+    @Cacheable(value = "featuredProducts", sync = true)
     @Transactional(readOnly = true)
-    public Page<ProductResponse> getFeaturedProducts(Pageable pageable) {
-        return productRepository.findFeaturedProducts(pageable)
-                .map(ProductResponse::summary);
+    public CachedPage<ProductResponse> getFeaturedProducts(Pageable pageable) {
+        return CachedPage.of(toSummaryPage(productRepository.findFeaturedSummaries(pageable)));
     }
 
     /**
@@ -153,8 +321,23 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getNewArrivals(Pageable pageable) {
-        return productRepository.findNewArrivals(pageable)
-                .map(ProductResponse::summary);
+        return toSummaryPage(productRepository.findNewArrivalSummaries(pageable));
+    }
+
+    /**
+     * Get new arrivals without an exact count.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> getNewArrivals(Pageable pageable, TotalMode totalMode) {
+        return slice(ProductSearchCriteria.builder().build(), ProductSort.NEWEST, pageable, totalMode);
+    }
+
+    /**
+     * Get new arrivals with keyset pagination.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getNewArrivals(String cursor, int size) {
+        return seek(ProductSearchCriteria.builder().build(), ProductSort.NEWEST, cursor, size);
     }
 
     /**
@@ -162,8 +345,15 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getOnSaleProducts(Pageable pageable) {
-        return productRepository.findOnSaleProducts(pageable)
-                .map(ProductResponse::summary);
+        return toSummaryPage(productRepository.findOnSaleSummaries(pageable));
+    }
+
+    /**
+     * Get products on sale, newest first, without an exact count.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> getOnSaleProducts(Pageable pageable, TotalMode totalMode) {
+        return slice(ProductSearchCriteria.builder().onSale(true).build(), ProductSort.NEWEST, pageable, totalMode);
     }
 
     /**
@@ -171,8 +361,32 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getBestSellers(Pageable pageable) {
-        return productRepository.findBestSellers(pageable)
-                .map(ProductResponse::summary);
+        return toSummaryPage(productRepository.findBestSellerSummaries(pageable));
+    }
+
+    /**
+     * Get the products with the most recent views and sales, optionally within a category and its
+     * subcategories. Ranked in memory; only the summaries missing from the cache are loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getTrendingProducts(UUID categoryId, int size) {
+        return loadSummaries(trendingProducts.top(categoryId, size));
+    }
+
+    /**
+     * Get best sellers without an exact count.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> getBestSellers(Pageable pageable, TotalMode totalMode) {
+        return slice(ProductSearchCriteria.builder().build(), ProductSort.BESTSELLING, pageable, totalMode);
+    }
+
+    /**
+     * Get best sellers with keyset pagination.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getBestSellers(String cursor, int size) {
+        return seek(ProductSearchCriteria.builder().build(), ProductSort.BESTSELLING, cursor, size);
     }
 
     /**
@@ -180,8 +394,24 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByCategory(UUID categoryId, Pageable pageable) {
-        return productRepository.findByCategoryIdAndIsActiveTrue(categoryId, pageable)
-                .map(ProductResponse::summary);
+        return toSummaryPage(productRepository.findSummariesByCategoryId(categoryId, pageable));
+    }
+
+    /**
+     * Get products by category, newest first, without an exact count.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> getProductsByCategory(UUID categoryId, Pageable pageable, TotalMode totalMode) {
+        return slice(ProductSearchCriteria.builder().categoryId(categoryId).build(), ProductSort.NEWEST,
+                pageable, totalMode);
+    }
+
+    /**
+     * Get products by category, newest first, with keyset pagination.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getProductsByCategory(UUID categoryId, String cursor, int size) {
+        return seek(ProductSearchCriteria.builder().categoryId(categoryId).build(), ProductSort.NEWEST, cursor, size);
     }
 
     /**
@@ -189,8 +419,24 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByBrand(UUID brandId, Pageable pageable) {
-        return productRepository.findByBrandIdAndIsActiveTrue(brandId, pageable)
-                .map(ProductResponse::summary);
+        return toSummaryPage(productRepository.findSummariesByBrandId(brandId, pageable));
+    }
+
+    /**
+     * Get products by brand, newest first, without an exact count.
+     */
+    @Transactional(readOnly = true)
+    public SlicePage<ProductResponse> getProductsByBrand(UUID brandId, Pageable pageable, TotalMode totalMode) {
+        return slice(ProductSearchCriteria.builder().brandId(brandId).build(), ProductSort.NEWEST,
+                pageable, totalMode);
+    }
+
+    /**
+     * Get products by brand, newest first, with keyset pagination.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getProductsByBrand(UUID brandId, String cursor, int size) {
+        return seek(ProductSearchCriteria.builder().brandId(brandId).build(), ProductSort.NEWEST, cursor, size);
     }
 
     /**
@@ -220,6 +466,257 @@ public class ProductService {
         return Map.of("min", min, "max", max);
     }
 
+    /**
+     * Resolve one page of ids through the search result cache and hydrate it from the summary cache.
+     */
+    private Page<ProductResponse> searchPage(ProductSearchCriteria criteria, ProductSort sort, Pageable pageable) {
+        criteria = withCategorySubtree(criteria);
+        SearchMode mode = resolveMode(criteria);
+        if (criteria.hasKeyword() && mode != SearchMode.FTS && !productSearchIndex.isReady()) {
+            // The LIKE fallback only runs until the index is built, so it is not worth caching
+            Pageable pageableWithSort = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.toSort());
+            return productRepository.findAll(toSpecification(criteria), pageableWithSort)
+                    .map(ProductResponse::summary);
+        }
+
+        ProductSearchCriteria resolved = criteria;
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        SearchHits hits = searchResultCache.getOrLoad(SearchResultCache.key(resolved, mode, sort, offset, size),
+                resolved, () -> findHits(resolved, mode, sort, offset, size));
+        return new PageImpl<>(loadSummaries(hits.ids()), pageable, hits.total());
+    }
+
+    private SearchHits findHits(ProductSearchCriteria criteria, SearchMode mode, ProductSort sort, long offset, int size) {
+        if (!criteria.hasKeyword()) {
+            return new SearchHits(productRepository.findIds(criteria, sort, offset, size),
+                    productRepository.countMatching(criteria));
+        }
+        if (mode == SearchMode.FTS) {
+            SearchHits hits = productRepository.fullTextSearch(criteria, sort, offset, size);
+            if (hits.total() > 0 || !productSearchIndex.isReady()) {
+                return hits;
+            }
+            // Nothing matched the exact lexemes: let the index retry with typo tolerance
+        }
+        return productSearchIndex.search(criteria, sort, offset, size);
+    }
+
+    /**
+     * Fetch one offset page without counting: read one row past the page to learn whether another exists.
+     * Index-mode keyword searches already know their match count, so they always report it exactly.
+     */
+    private SlicePage<ProductResponse> slice(ProductSearchCriteria criteria, ProductSort sort, Pageable pageable,
+                                             TotalMode totalMode) {
+        if (criteria.hasKeyword() && resolveMode(criteria) != SearchMode.FTS) {
+            // Until the index is built the keyword fallback is the counted LIKE query
+            Page<ProductResponse> page = searchPage(criteria, sort, pageable);
+            return toSlice(page.getContent(), pageable, page.hasNext(),
+                    totalMode == TotalMode.NONE ? null : page.getTotalElements(), false);
+        }
+
+        int size = pageable.getPageSize();
+        List<UUID> ids = productRepository.findIds(criteria, sort, pageable.getOffset(), size + 1);
+        if (needsTypoRetry(criteria, sort, ids.isEmpty(), pageable.getOffset() == 0)) {
+            SearchHits hits = productSearchIndex.search(withCategorySubtree(criteria), sort, pageable.getOffset(), size);
+            return toSlice(loadSummaries(hits.ids()), pageable, pageable.getOffset() + hits.ids().size() < hits.total(),
+                    totalMode == TotalMode.NONE ? null : hits.total(), false);
+        }
+        boolean hasNext = ids.size() > size;
+        if (hasNext) {
+            ids = ids.subList(0, size);
+        }
+
+        Long total = null;
+        boolean estimated = false;
+        if (totalMode == TotalMode.ESTIMATE) {
+            if (hasNext) {
+                total = productCountEstimator.estimate(criteria);
+                estimated = true;
+            } else {
+                // The last page pins the total exactly
+                total = pageable.getOffset() + ids.size();
+            }
+        }
+        return toSlice(loadSummaries(ids), pageable, hasNext, total, estimated);
+    }
+
+    /**
+     * Whether a full-text keyword search matched nothing at all, so the index should retry it with typo
+     * tolerance as {@link #findHits} does. An empty later page only counts when the search has no match.
+     */
+    private boolean needsTypoRetry(ProductSearchCriteria criteria, ProductSort sort, boolean empty, boolean firstPage) {
+        return empty && criteria.hasKeyword() && productSearchIndex.isReady()
+                && (firstPage || productRepository.findIds(criteria, sort, 0, 1).isEmpty());
+    }
+
+    /**
+     * Hand a first-page keyword search to the analytics buffer; later pages are the same search.
+     */
+    private void recordSearch(ProductSearchCriteria criteria, Long resultCount) {
+        if (criteria.hasKeyword()) {
+            searchAnalyticsRecorder.record(criteria.getQuery(), resultCount);
+        }
+    }
+
+    private SlicePage<ProductResponse> toSlice(List<ProductResponse> content, Pageable pageable, boolean hasNext,
+                                               Long total, boolean estimated) {
+        return SlicePage.<ProductResponse>builder()
+                .content(content)
+                .page(pageable.getPageNumber())
+                .size(pageable.getPageSize())
+                .hasNext(hasNext)
+                .totalElements(total)
+                .totalEstimated(estimated)
+                .build();
+    }
+
+    /**
+     * Fetch one keyset page. Keyword searches in index mode seek in memory; everything else
+     * runs the seek query against the composite indexes.
+     */
+    private CursorPage<ProductResponse> seek(ProductSearchCriteria criteria, ProductSort sort, String cursor, int size) {
+        criteria = withCategorySubtree(criteria);
+        ProductCursor after = ProductCursor.decode(cursor);
+        int limit = Math.max(1, size);
+
+        CursorHits hits;
+        if (criteria.hasKeyword() && resolveMode(criteria) != SearchMode.FTS && productSearchIndex.isReady()) {
+            hits = productSearchIndex.seek(criteria, sort, after, limit);
+        } else {
+            hits = productRepository.seek(criteria, sort, after, limit);
+            if (needsTypoRetry(criteria, sort, hits.ids().isEmpty(), after == null)) {
+                // Later pages of a retried search carry index cursors, which find nothing in SQL and land here again
+                hits = productSearchIndex.seek(criteria, sort, after, limit);
+            }
+        }
+
+        return CursorPage.<ProductResponse>builder()
+                .content(loadSummaries(hits.ids()))
+                .size(limit)
+                .hasNext(hits.next() != null)
+                .nextCursor(hits.next() != null ? hits.next().encode() : null)
+                .build();
+    }
+
+    /**
+     * Facet values with their labels, most frequent first.
+     */
+    private static <K> List<ProductFacetsResponse.FacetValue> toFacetValues(Map<K, Long> counts, Map<K, String> labels) {
+        return counts.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+                .map(entry -> ProductFacetsResponse.FacetValue.builder()
+                        .value(entry.getKey().toString())
+                        .label(labels.getOrDefault(entry.getKey(), entry.getKey().toString()))
+                        .count(entry.getValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A category filter also matches its subcategories. SQL resolves them through the closure table;
+     * the in-memory index and the result cache use the descendant ids of the current category tree.
+     */
+    private ProductSearchCriteria withCategorySubtree(ProductSearchCriteria criteria) {
+        if (criteria.getCategoryId() == null || criteria.getCategorySubtree() != null) {
+            return criteria;
+        }
+        Set<UUID> subtree = categoryIndex.tree().descendantIds(criteria.getCategoryId());
+        return criteria.toBuilder()
+                .categorySubtree(subtree.isEmpty() ? Set.of(criteria.getCategoryId()) : subtree)
+                .build();
+    }
+
+    private SearchMode resolveMode(ProductSearchCriteria criteria) {
+        return criteria.getMode() != null ? criteria.getMode() : SearchMode.from(defaultSearchEngine);
+    }
+
+    /**
+     * Count a view of a product detail that was loaded.
+     */
+    private void recordView(ProductResponse product) {
+        productViewCounter.record(product.getId());
+        trendingProducts.recordView(product.getId(),
+                product.getCategory() != null ? product.getCategory().getId() : null);
+    }
+
+    /**
+     * Map product ids to summaries in the given order, loading only those missing from the summary cache.
+     */
+    private List<ProductResponse> loadSummaries(List<UUID> ids) {
+        return searchResultCache.getSummaries(ids, missing -> {
+            List<ProductSummaryRow> rows = productRepository.findSummariesByIdIn(missing);
+            Map<UUID, String> images = primaryImageUrls(rows);
+            return rows.stream().collect(Collectors.toMap(ProductSummaryRow::id,
+                    row -> ProductResponse.summary(row.withPrimaryImageUrl(images.get(row.id())))));
+        });
+    }
+
+    private Page<ProductResponse> toSummaryPage(Page<ProductSummaryRow> rows) {
+        Map<UUID, String> images = primaryImageUrls(rows.getContent());
+        return rows.map(row -> ProductResponse.summary(row.withPrimaryImageUrl(images.get(row.id()))));
+    }
+
+    /**
+     * Primary image URL per product, falling back to the first image by display order.
+     */
+    private Map<UUID, String> primaryImageUrls(List<ProductSummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, String> images = new HashMap<>();
+        List<UUID> ids = rows.stream().map(ProductSummaryRow::id).toList();
+        for (Object[] row : productRepository.findImageUrlsByProductIds(ids)) {
+            images.putIfAbsent((UUID) row[0], (String) row[1]);
+        }
+        return images;
+    }
+
+    private Specification<Product> toSpecification(ProductSearchCriteria criteria) {
+        Specification<Product> spec = Specification.where(isActive());
+
+        if (criteria.hasKeyword()) {
+            spec = spec.and(searchByKeyword(criteria.getQuery()));
+        }
+
+        if (criteria.getCategoryId() != null) {
+            spec = spec.and(hasCategory(criteria.getCategoryId()));
+        }
+
+        if (criteria.getBrandId() != null) {
+            spec = spec.and(hasBrand(criteria.getBrandId()));
+        }
+
+        if (criteria.getMinPrice() != null) {
+            spec = spec.and(priceGreaterThanOrEqual(criteria.getMinPrice()));
+        }
+
+        if (criteria.getMaxPrice() != null) {
+            spec = spec.and(priceLessThanOrEqual(criteria.getMaxPrice()));
+        }
+
+        if (criteria.getMinRating() != null) {
+            spec = spec.and(ratingGreaterThanOrEqual(criteria.getMinRating()));
+        }
+
+        if (Boolean.TRUE.equals(criteria.getInStock())) {
+            spec = spec.and(inStock());
+        }
+
+        if (Boolean.TRUE.equals(criteria.getOnSale())) {
+            spec = spec.and(onSale());
+        }
+
+        if (criteria.hasAttributeFilters()) {
+            for (Map.Entry<UUID, Set<String>> attribute : criteria.getAttributes().entrySet()) {
+                spec = spec.and(hasAttributeValue(attribute.getKey(), attribute.getValue()));
+            }
+        }
+
+        return spec;
+    }
+
     // Specification builders
     private Specification<Product> isActive() {
         return (root, query, cb) -> cb.isTrue(root.get("isActive"));
@@ -237,7 +734,12 @@ public class ProductService {
     }
 
     private Specification<Product> hasCategory(UUID categoryId) {
-        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+        return (root, query, cb) -> {
+            Subquery<UUID> subtree = query.subquery(UUID.class);
+            Root<CategoryClosure> closure = subtree.from(CategoryClosure.class);
+            subtree.select(closure.get("descendantId")).where(cb.equal(closure.get("ancestorId"), categoryId));
+            return root.get("category").get("id").in(subtree);
+        };
     }
 
     private Specification<Product> hasBrand(UUID brandId) {
@@ -267,16 +769,14 @@ public class ProductService {
         );
     }
 
-    private Sort buildSort(String sortBy, String sortDir) {
-        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
-
-        return switch (sortBy != null ? sortBy.toLowerCase() : "relevance") {
-            case "price" -> Sort.by(direction, "price");
-            case "rating" -> Sort.by(Sort.Direction.DESC, "averageRating");
-            case "newest" -> Sort.by(Sort.Direction.DESC, "createdAt");
-            case "bestselling" -> Sort.by(Sort.Direction.DESC, "soldCount");
-            case "name" -> Sort.by(direction, "name");
-            default -> Sort.by(Sort.Direction.DESC, "soldCount", "averageRating");
+    private Specification<Product> hasAttributeValue(UUID attributeId, Set<String> values) {
+        return (root, query, cb) -> {
+            Subquery<UUID> matching = query.subquery(UUID.class);
+            Root<ProductAttributeValue> value = matching.from(ProductAttributeValue.class);
+            matching.select(value.get("product").get("id")).where(
+                    cb.equal(value.get("attribute").get("id"), attributeId),
+                    value.get("value").in(values));
+            return root.get("id").in(matching);
         };
     }
 }
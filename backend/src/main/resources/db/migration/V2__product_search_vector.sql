@@ -0,0 +1,16 @@
+-- I Love Shopping - Weighted full-text search vector
+-- PostgreSQL Migration Script V2
+
+-- Stored generated tsvector: name (A) > sku (B) > description (C).
+-- The SKU uses the 'simple' configuration so codes are not stemmed.
+ALTER TABLE products ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', COALESCE(name, '')), 'A') ||
+        setweight(to_tsvector('simple', COALESCE(sku, '')), 'B') ||
+        setweight(to_tsvector('english', COALESCE(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX idx_products_search_vector ON products USING gin(search_vector);
+
+-- Superseded by idx_products_search_vector; the expression index is no longer used by any query
+DROP INDEX IF EXISTS idx_products_search;
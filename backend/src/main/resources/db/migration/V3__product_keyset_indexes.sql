@@ -0,0 +1,18 @@
+-- I Love Shopping - Keyset pagination indexes
+-- PostgreSQL Migration Script V3
+
+-- Sort keys must be non-null for (key, id) row comparisons to seek correctly
+UPDATE products SET sold_count = 0 WHERE sold_count IS NULL;
+UPDATE products SET average_rating = 0 WHERE average_rating IS NULL;
+ALTER TABLE products ALTER COLUMN sold_count SET NOT NULL;
+ALTER TABLE products ALTER COLUMN average_rating SET NOT NULL;
+
+-- One composite index per listing order, ending in id so the seek predicate is a single range scan
+CREATE INDEX idx_products_seek_price ON products(price, id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_created ON products(created_at, id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_popularity ON products(sold_count, average_rating, id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_sold ON products(sold_count, id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_rating ON products(average_rating, id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_name ON products(LOWER(name), id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_category_created ON products(category_id, created_at, id) WHERE is_active = true;
+CREATE INDEX idx_products_seek_brand_created ON products(brand_id, created_at, id) WHERE is_active = true;
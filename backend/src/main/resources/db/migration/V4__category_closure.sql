@@ -0,0 +1,79 @@
+-- I Love Shopping - Category closure table
+-- PostgreSQL Migration Script V4
+
+-- One row per (ancestor, descendant) pair, including each category paired with itself at depth 0,
+-- so "products in this category or below" is a primary-key range scan joined to idx_products_category.
+CREATE TABLE category_closure (
+    ancestor_id UUID NOT NULL REFERENCES categories(id) ON DELETE CASCADE,
+    descendant_id UUID NOT NULL REFERENCES categories(id) ON DELETE CASCADE,
+    depth INTEGER NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_category_closure_descendant ON category_closure(descendant_id, depth);
+
+INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+WITH RECURSIVE tree AS (
+    SELECT id AS ancestor_id, id AS descendant_id, 0 AS depth FROM categories
+    UNION ALL
+    SELECT t.ancestor_id, c.id, t.depth + 1
+    FROM tree t
+    JOIN categories c ON c.parent_id = t.descendant_id
+)
+SELECT ancestor_id, descendant_id, depth FROM tree;
+
+-- A new category is its own descendant and a descendant of every ancestor of its parent
+CREATE OR REPLACE FUNCTION category_closure_insert() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+    SELECT ancestor_id, NEW.id, depth + 1 FROM category_closure WHERE descendant_id = NEW.parent_id
+    UNION ALL
+    SELECT NEW.id, NEW.id, 0;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_category_closure_insert
+    AFTER INSERT ON categories
+    FOR EACH ROW EXECUTE FUNCTION category_closure_insert();
+
+-- Moving a category under one of its own descendants would create a cycle
+CREATE OR REPLACE FUNCTION category_closure_check_move() RETURNS trigger AS $$
+BEGIN
+    IF NEW.parent_id IS NOT NULL AND EXISTS (
+        SELECT 1 FROM category_closure WHERE ancestor_id = NEW.id AND descendant_id = NEW.parent_id
+    ) THEN
+        RAISE EXCEPTION 'Category % cannot be moved under its own descendant %', NEW.id, NEW.parent_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_category_closure_check_move
+    BEFORE UPDATE OF parent_id ON categories
+    FOR EACH ROW
+    WHEN (OLD.parent_id IS DISTINCT FROM NEW.parent_id)
+    EXECUTE FUNCTION category_closure_check_move();
+
+-- Detach the moved subtree from its old ancestors, then link it below every ancestor of the new parent
+CREATE OR REPLACE FUNCTION category_closure_move() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM category_closure
+    WHERE descendant_id IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = NEW.id)
+      AND ancestor_id NOT IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = NEW.id);
+
+    INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+    SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1
+    FROM category_closure above
+    CROSS JOIN category_closure below
+    WHERE above.descendant_id = NEW.parent_id
+      AND below.ancestor_id = NEW.id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_category_closure_move
+    AFTER UPDATE OF parent_id ON categories
+    FOR EACH ROW
+    WHEN (OLD.parent_id IS DISTINCT FROM NEW.parent_id)
+    EXECUTE FUNCTION category_closure_move();
@@ -0,0 +1,6 @@
+-- I Love Shopping - Product change tracking
+-- PostgreSQL Migration Script V5
+
+-- The catalog version polls MAX(updated_at) to notice product changes made by bulk updates;
+-- the index makes that a single index probe
+CREATE INDEX idx_products_updated ON products(updated_at);
@@ -0,0 +1,108 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.event.CategoryChangedEvent;
+import com.iloveshopping.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the catalog version behind listing validators.
+ */
+class CatalogVersionTest {
+
+    private ValueOperations<String, String> redisValues;
+    private ProductRepository productRepository;
+    private CatalogVersion catalogVersion;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisValues = mock(ValueOperations.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(redisValues);
+        productRepository = mock(ProductRepository.class);
+        catalogVersion = new CatalogVersion(redisTemplate, productRepository);
+    }
+
+    @Test
+    @DisplayName("Should issue a weak ETag from the shared version")
+    void shouldReadSharedVersion() {
+        // Given
+        when(redisValues.get(CatalogVersion.KEY)).thenReturn("42");
+
+        // When
+        catalogVersion.refresh();
+
+        // Then
+        assertThat(catalogVersion.etag()).isEqualTo("W/\"catalog-42\"");
+    }
+
+    @Test
+    @DisplayName("Should move the ETag on a catalog change")
+    void shouldIncrementOnChange() {
+        // Given
+        when(redisValues.get(CatalogVersion.KEY)).thenReturn("42");
+        when(redisValues.increment(CatalogVersion.KEY)).thenReturn(43L);
+        catalogVersion.refresh();
+
+        // When
+        catalogVersion.onCategoryChanged(new CategoryChangedEvent(UUID.randomUUID()));
+
+        // Then
+        assertThat(catalogVersion.etag()).isEqualTo("W/\"catalog-43\"");
+    }
+
+    @Test
+    @DisplayName("Should stop validating until a change that Redis missed has been counted")
+    void shouldRetryFailedIncrement() {
+        // Given
+        when(redisValues.get(CatalogVersion.KEY)).thenReturn("42");
+        when(redisValues.setIfAbsent(eq(CatalogVersion.KEY), anyString())).thenReturn(false);
+        when(redisValues.increment(CatalogVersion.KEY))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(43L);
+        catalogVersion.refresh();
+
+        // When
+        catalogVersion.onCategoryChanged(new CategoryChangedEvent(UUID.randomUUID()));
+        String whileDown = catalogVersion.etag();
+        catalogVersion.refresh();
+
+        // Then
+        assertThat(whileDown).isNull();
+        assertThat(catalogVersion.etag()).isEqualTo("W/\"catalog-43\"");
+    }
+
+    @Test
+    @DisplayName("Should move the ETag when products were updated without an event")
+    void shouldCountBulkUpdates() {
+        // Given
+        LocalDateTime before = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(redisValues.get(CatalogVersion.KEY)).thenReturn("42");
+        when(redisValues.increment(CatalogVersion.KEY)).thenReturn(43L);
+        when(productRepository.findLastUpdatedAt()).thenReturn(before, before, before.plusSeconds(1));
+        catalogVersion.refresh();
+        catalogVersion.refresh();
+        String unchanged = catalogVersion.etag();
+
+        // When
+        catalogVersion.refresh();
+
+        // Then
+        assertThat(unchanged).isEqualTo("W/\"catalog-42\"");
+        assertThat(catalogVersion.etag()).isEqualTo("W/\"catalog-43\"");
+    }
+}
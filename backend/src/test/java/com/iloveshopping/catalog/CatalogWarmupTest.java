@@ -0,0 +1,147 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.repository.ProductRepository;
+import com.iloveshopping.service.CategoryService;
+import com.iloveshopping.service.ProductDetailLoader;
+import com.iloveshopping.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the startup catalog warm-up.
+ */
+class CatalogWarmupTest {
+
+    private ProductService productService;
+    private ProductDetailLoader productDetailLoader;
+    private CategoryService categoryService;
+    private ProductRepository productRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        productDetailLoader = mock(ProductDetailLoader.class);
+        categoryService = mock(CategoryService.class);
+        productRepository = mock(ProductRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(productRepository.findMostViewedIds(any(Pageable.class)))
+                .thenReturn(IntStream.range(0, 45).mapToObj(i -> UUID.randomUUID()).toList());
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), anyInt())).thenReturn(List.of("laptop"));
+    }
+
+    @Test
+    @DisplayName("Should report DOWN until the warm-up has run")
+    void shouldHoldReadinessUntilDone() {
+        // Given
+        CatalogWarmup warmup = warmup(Duration.ofSeconds(10));
+        Status before = warmup.health().getStatus();
+
+        // When
+        warmup.run();
+
+        // Then
+        assertThat(before).isEqualTo(Status.DOWN);
+        assertThat(warmup.state()).isEqualTo(CatalogWarmup.State.DONE);
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Should load details in batches without counting views, and popular searches")
+    void shouldWarmDetailsAndSearches() {
+        // When
+        warmup(Duration.ofSeconds(10)).run();
+
+        // Then
+        verify(productDetailLoader, times(3)).loadAll(anyList());
+        verify(productService, never()).getProductById(any());
+        verify(productService).preloadSearch(eq("laptop"), anyInt());
+        verify(productService).getFeaturedProducts(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should not hold readiness for a failed task")
+    void shouldFinishDespiteFailures() {
+        // Given
+        when(categoryService.getCategoryTree()).thenThrow(new IllegalStateException("database down"));
+        CatalogWarmup warmup = warmup(Duration.ofSeconds(10));
+
+        // When
+        warmup.run();
+
+        // Then
+        assertThat(warmup.state()).isEqualTo(CatalogWarmup.State.DONE);
+        assertThat(warmup.health().getDetails()).containsEntry("failedTasks", 1);
+    }
+
+    @Test
+    @DisplayName("Should give up on unfinished tasks at the timeout")
+    void shouldStopAtTimeout() {
+        // Given
+        when(productService.getBestSellers(any(Pageable.class))).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return null;
+        });
+        CatalogWarmup warmup = warmup(Duration.ofMillis(200));
+
+        // When
+        long start = System.currentTimeMillis();
+        warmup.run();
+
+        // Then
+        assertThat(System.currentTimeMillis() - start).isLessThan(2_000);
+        assertThat(warmup.state()).isEqualTo(CatalogWarmup.State.TIMED_OUT);
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Should report the warm-up to readiness but not to the root health group")
+    void shouldStayOutOfRootHealth() {
+        // Given
+        HealthEndpointGroup primary = mock(HealthEndpointGroup.class);
+        HealthEndpointGroup readiness = mock(HealthEndpointGroup.class);
+        when(primary.isMember(anyString())).thenReturn(true);
+        when(readiness.isMember(anyString())).thenReturn(true);
+        CatalogWarmupHealthIndicator indicator = new CatalogWarmupHealthIndicator(warmup(Duration.ofSeconds(10)));
+
+        // When
+        HealthEndpointGroups groups = indicator.postProcessHealthEndpointGroups(
+                HealthEndpointGroups.of(primary, Map.of("readiness", readiness)));
+
+        // Then
+        assertThat(groups.getPrimary().isMember(CatalogWarmupHealthIndicator.NAME)).isFalse();
+        assertThat(groups.getPrimary().isMember("db")).isTrue();
+        assertThat(groups.get("readiness").isMember(CatalogWarmupHealthIndicator.NAME)).isTrue();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    private CatalogWarmup warmup(Duration timeout) {
+        return new CatalogWarmup(productService, productDetailLoader, categoryService, productRepository,
+                jdbcTemplate, new SimpleMeterRegistry(), true, 2, timeout, 10, 45, 10);
+    }
+}
@@ -0,0 +1,46 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.repository.CategoryRepository;
+import com.iloveshopping.repository.CategoryRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the category tree snapshot holder.
+ */
+class CategoryIndexTest {
+
+    @Test
+    @DisplayName("Should keep the previous tree when a build fails and pick up the change on the next rebuild")
+    void shouldRetryFailedBuild() {
+        // Given
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAllRows())
+                .thenReturn(List.of(row("Books")))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(List.of(row("Books"), row("Games")));
+        CategoryIndex index = new CategoryIndex(categoryRepository);
+        index.rebuild();
+
+        // When
+        index.rebuild();
+        int afterFailure = index.tree().size();
+        index.scheduledRebuild();
+
+        // Then
+        assertThat(afterFailure).isEqualTo(1);
+        assertThat(index.tree().size()).isEqualTo(2);
+    }
+
+    private static CategoryRow row(String name) {
+        return new CategoryRow(UUID.randomUUID(), null, name, name.toLowerCase(), null, null, 0, true);
+    }
+}
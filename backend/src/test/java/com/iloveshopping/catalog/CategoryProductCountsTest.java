@@ -0,0 +1,113 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent.ChangeType;
+import com.iloveshopping.event.ProductChangedEvent.ProductState;
+import com.iloveshopping.repository.CategoryRow;
+import com.iloveshopping.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for incrementally maintained category product counts.
+ */
+class CategoryProductCountsTest {
+
+    private final UUID electronics = UUID.randomUUID();
+    private final UUID laptops = UUID.randomUUID();
+    private final UUID phones = UUID.randomUUID();
+
+    private CategoryIndex categoryIndex;
+    private CategoryProductCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        categoryIndex = mock(CategoryIndex.class);
+        when(categoryIndex.tree()).thenReturn(tree(1, phones));
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.countByCategory()).thenReturn(List.of(
+                new Object[]{laptops, 3L}, new Object[]{phones, 2L}, new Object[]{electronics, 1L}));
+        counts = new CategoryProductCounts(productRepository, categoryIndex);
+        counts.reconcile();
+    }
+
+    @Test
+    @DisplayName("Should roll direct counts up to every ancestor")
+    void shouldRollUpCounts() {
+        assertThat(counts.direct(electronics)).isEqualTo(1);
+        assertThat(counts.rolledUp(electronics)).isEqualTo(6);
+        assertThat(counts.rolledUp(laptops)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should move a product's count between categories and their ancestors")
+    void shouldApplyMoves() {
+        // When
+        counts.onProductChanged(new ProductChangedEvent(UUID.randomUUID(), ChangeType.UPDATED,
+                new ProductState(laptops, null, true), new ProductState(phones, null, true)));
+
+        // Then
+        assertThat(counts.direct(laptops)).isEqualTo(2);
+        assertThat(counts.direct(phones)).isEqualTo(3);
+        assertThat(counts.rolledUp(electronics)).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should skip a change that the last reconcile already counted")
+    void shouldSkipChangesOlderThanReconcile() {
+        // Given an event delivered only after a reconcile that read its commit
+        ProductChangedEvent late = new ProductChangedEvent(UUID.randomUUID(), ChangeType.CREATED,
+                null, new ProductState(laptops, null, true));
+        counts.reconcile();
+
+        // When
+        counts.onProductChanged(late);
+        counts.onProductChanged(new ProductChangedEvent(UUID.randomUUID(), ChangeType.CREATED,
+                null, new ProductState(phones, null, true)));
+
+        // Then
+        assertThat(counts.direct(laptops)).isEqualTo(3);
+        assertThat(counts.direct(phones)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should count only active products through creation and deactivation")
+    void shouldTrackActivation() {
+        // When
+        counts.onProductChanged(new ProductChangedEvent(UUID.randomUUID(), ChangeType.CREATED,
+                null, new ProductState(laptops, null, false)));
+        counts.onProductChanged(new ProductChangedEvent(UUID.randomUUID(), ChangeType.UPDATED,
+                new ProductState(phones, null, true), new ProductState(phones, null, false)));
+
+        // Then
+        assertThat(counts.direct(laptops)).isEqualTo(3);
+        assertThat(counts.rolledUp(electronics)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should recompute roll-ups when a category moves in a new tree")
+    void shouldFollowTreeChanges() {
+        // When phones becomes a root category
+        when(categoryIndex.tree()).thenReturn(tree(2, null));
+
+        // Then
+        assertThat(counts.rolledUp(electronics)).isEqualTo(4);
+        assertThat(counts.rolledUp(phones)).isEqualTo(2);
+    }
+
+    private CategoryTree tree(long version, UUID phonesParent) {
+        return CategoryTree.build(version, List.of(
+                new CategoryRow(electronics, null, "Electronics", "electronics", null, null, 0, true),
+                new CategoryRow(laptops, electronics, "Laptops", "laptops", null, null, 0, true),
+                new CategoryRow(phones, phonesParent != null ? electronics : null, "Phones", "phones",
+                        null, null, 1, true)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.iloveshopping.catalog;
+
+import com.iloveshopping.repository.CategoryRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the immutable category tree snapshot.
+ */
+class CategoryTreeTest {
+
+    private final UUID electronics = UUID.randomUUID();
+    private final UUID computers = UUID.randomUUID();
+    private final UUID laptops = UUID.randomUUID();
+    private final UUID phones = UUID.randomUUID();
+    private final UUID retired = UUID.randomUUID();
+    private final UUID books = UUID.randomUUID();
+
+    private CategoryTree tree;
+
+    @BeforeEach
+    void setUp() {
+        // Rows arrive in no particular order
+        tree = CategoryTree.build(1, List.of(
+                row(laptops, computers, "Laptops", 0, true),
+                row(books, null, "Books", 2, true),
+                row(phones, electronics, "Phones", 0, true),
+                row(computers, electronics, "Computers", 1, true),
+                row(retired, electronics, "Retired", 2, false),
+                row(electronics, null, "Electronics", 1, true)));
+    }
+
+    @Test
+    @DisplayName("Should precompute depth and full path")
+    void shouldPrecomputeDepthAndPath() {
+        CategoryTree.Node node = tree.get(laptops);
+
+        assertThat(node.depth()).isEqualTo(2);
+        assertThat(node.fullPath()).isEqualTo("Electronics > Computers > Laptops");
+        assertThat(node.parentId()).isEqualTo(computers);
+        assertThat(tree.breadcrumb(laptops)).extracting(CategoryTree.Node::id)
+                .containsExactly(electronics, computers, laptops);
+    }
+
+    @Test
+    @DisplayName("Should order roots and children by display order and hide inactive ones")
+    void shouldOrderActiveSiblings() {
+        assertThat(tree.activeRoots()).extracting(CategoryTree.Node::id).containsExactly(electronics, books);
+        assertThat(tree.activeChildren(electronics)).extracting(CategoryTree.Node::id)
+                .containsExactly(phones, computers);
+        assertThat(tree.activeByDisplayOrder()).hasSize(5).doesNotContain(tree.get(retired));
+    }
+
+    @Test
+    @DisplayName("Should return the category and everything below it as descendants")
+    void shouldCollectDescendants() {
+        assertThat(tree.descendantIds(electronics))
+                .containsExactlyInAnyOrder(electronics, phones, computers, laptops, retired);
+        assertThat(tree.descendantIds(computers)).containsExactlyInAnyOrder(computers, laptops);
+        assertThat(tree.descendantIds(books)).containsExactly(books);
+        assertThat(tree.descendantIds(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should look categories up by slug")
+    void shouldIndexSlugs() {
+        assertThat(tree.getBySlug("phones").id()).isEqualTo(phones);
+        assertThat(tree.getBySlug("missing")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should leave out categories caught in a parent cycle")
+    void shouldSkipCycles() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        CategoryTree cyclic = CategoryTree.build(2, List.of(
+                row(books, null, "Books", 0, true),
+                row(first, second, "First", 0, true),
+                row(second, first, "Second", 0, true)));
+
+        assertThat(cyclic.size()).isEqualTo(1);
+        assertThat(cyclic.get(first)).isNull();
+    }
+
+    private static CategoryRow row(UUID id, UUID parentId, String name, int displayOrder, boolean active) {
+        return new CategoryRow(id, parentId, name, name.toLowerCase(), null, null, displayOrder, active);
+    }
+}
@@ -0,0 +1,84 @@
+package com.iloveshopping.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for buffered product view counting.
+ */
+class ProductViewCounterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        counter = new ProductViewCounter(jdbcTemplate, new SimpleMeterRegistry(), Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Should write one increment per viewed product")
+    @SuppressWarnings("unchecked")
+    void shouldBatchIncrements() {
+        // Given
+        UUID phone = UUID.randomUUID();
+        UUID laptop = UUID.randomUUID();
+        counter.record(phone);
+        counter.record(phone);
+        counter.record(laptop);
+
+        // When
+        counter.flush();
+
+        // Then
+        ArgumentCaptor<Collection<Object>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(contains("view_count"), batch.capture(), anyInt(), any());
+        assertThat(batch.getValue()).hasSize(2);
+        assertThat(counter.pendingViews()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep views for the next flush when the batch fails")
+    void shouldRetryFailedBatch() {
+        // Given
+        counter.record(UUID.randomUUID());
+        counter.record(UUID.randomUUID());
+        when(jdbcTemplate.batchUpdate(any(String.class), any(Collection.class), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        // When
+        counter.flush();
+
+        // Then
+        assertThat(counter.pendingViews()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when nothing was viewed")
+    void shouldSkipEmptyFlush() {
+        // When
+        counter.flush();
+
+        // Then
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), any(Collection.class), anyInt(), any());
+    }
+}
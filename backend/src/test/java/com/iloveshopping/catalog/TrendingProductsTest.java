@@ -0,0 +1,206 @@
+package com.iloveshopping.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent.ChangeType;
+import com.iloveshopping.event.ProductChangedEvent.ProductState;
+import com.iloveshopping.event.ProductSoldEvent;
+import com.iloveshopping.repository.CategoryRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for time-decayed trending products.
+ */
+class TrendingProductsTest {
+
+    private final UUID electronics = UUID.randomUUID();
+    private final UUID laptops = UUID.randomUUID();
+    private final UUID phones = UUID.randomUUID();
+    private final UUID laptop = UUID.randomUUID();
+    private final UUID phone = UUID.randomUUID();
+
+    private CategoryIndex categoryIndex;
+    private ValueOperations<String, String> redisValues;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        categoryIndex = mock(CategoryIndex.class);
+        when(categoryIndex.tree()).thenReturn(CategoryTree.build(1, List.of(
+                new CategoryRow(electronics, null, "Electronics", "electronics", null, null, 0, true),
+                new CategoryRow(laptops, electronics, "Laptops", "laptops", null, null, 0, true),
+                new CategoryRow(phones, electronics, "Phones", "phones", null, null, 1, true))));
+        redisValues = mock(ValueOperations.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(redisValues);
+    }
+
+    @Test
+    @DisplayName("Should rank by activity overall and along the category path")
+    void shouldRankPerCategory() {
+        // Given
+        TrendingProducts trending = trending(200);
+        views(trending, laptop, laptops, 3);
+        views(trending, phone, phones, 1);
+
+        // When
+        trending.refresh();
+
+        // Then
+        assertThat(trending.top(null, 10)).containsExactly(laptop, phone);
+        assertThat(trending.top(electronics, 10)).containsExactly(laptop, phone);
+        assertThat(trending.top(phones, 10)).containsExactly(phone);
+        assertThat(trending.top(null, 1)).containsExactly(laptop);
+    }
+
+    @Test
+    @DisplayName("Should weigh a sale above a view")
+    void shouldWeighSales() {
+        // Given
+        TrendingProducts trending = trending(200);
+        views(trending, laptop, laptops, 5);
+        trending.onProductSold(new ProductSoldEvent(phone, phones, 1));
+
+        // When
+        trending.refresh();
+
+        // Then
+        assertThat(trending.top(null, 10)).containsExactly(phone, laptop);
+    }
+
+    @Test
+    @DisplayName("Should keep the heaviest products once the sketch is full")
+    void shouldEvictLightestProduct() {
+        // Given
+        TrendingProducts trending = trending(2);
+        UUID tablet = UUID.randomUUID();
+        views(trending, laptop, laptops, 5);
+        views(trending, phone, phones, 1);
+        trending.refresh();
+
+        // When
+        views(trending, tablet, laptops, 5);
+        trending.refresh();
+
+        // Then
+        assertThat(trending.top(null, 10)).containsExactly(tablet, laptop);
+    }
+
+    @Test
+    @DisplayName("Should drop deactivated products")
+    void shouldDropDeactivatedProducts() {
+        // Given
+        TrendingProducts trending = trending(200);
+        views(trending, laptop, laptops, 3);
+        views(trending, phone, phones, 1);
+        trending.refresh();
+
+        // When
+        trending.onProductChanged(new ProductChangedEvent(laptop, ChangeType.UPDATED,
+                new ProductState(laptops, null, true), new ProductState(laptops, null, false)));
+        trending.refresh();
+
+        // Then
+        assertThat(trending.top(null, 10)).containsExactly(phone);
+        assertThat(trending.top(laptops, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should restore rankings from the Redis snapshot")
+    void shouldRestoreSnapshot() {
+        // Given
+        TrendingProducts trending = trending(200);
+        views(trending, laptop, laptops, 3);
+        views(trending, phone, phones, 1);
+        trending.refresh();
+        String snapshot = snapshot(trending);
+
+        // When
+        TrendingProducts restarted = trending(200);
+        restoreFrom(restarted, snapshot);
+
+        // Then
+        assertThat(restarted.top(null, 10)).containsExactly(laptop, phone);
+        assertThat(restarted.top(phones, 10)).containsExactly(phone);
+    }
+
+    @Test
+    @DisplayName("Should merge the snapshots of all nodes without counting a restored score twice")
+    void shouldMergeNodeSnapshots() {
+        // Given
+        TrendingProducts first = trending(200);
+        views(first, laptop, laptops, 3);
+        first.refresh();
+        TrendingProducts second = trending(200);
+        views(second, phone, phones, 4);
+        second.refresh();
+        String firstSnapshot = snapshot(first);
+        String secondSnapshot = snapshot(second);
+
+        // When
+        TrendingProducts restarted = trending(200);
+        restoreFrom(restarted, firstSnapshot, secondSnapshot);
+        TrendingProducts restartedAgain = trending(200);
+        restoreFrom(restartedAgain, snapshot(restarted), firstSnapshot);
+
+        // Then
+        assertThat(restarted.top(null, 10)).containsExactly(phone, laptop);
+        assertThat(restartedAgain.top(null, 10)).containsExactly(phone, laptop);
+        assertThat(restartedAgain.top(laptops, 10)).containsExactly(laptop);
+    }
+
+    private TrendingProducts trending(int capacity) {
+        return new TrendingProducts(categoryIndex, redisTemplate, new ObjectMapper(), Duration.ofHours(6), capacity, 10);
+    }
+
+    private void views(TrendingProducts trending, UUID productId, UUID categoryId, int count) {
+        for (int i = 0; i < count; i++) {
+            trending.recordView(productId, categoryId);
+        }
+    }
+
+    private String snapshot(TrendingProducts trending) {
+        clearInvocations(redisValues);
+        trending.snapshot();
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisValues).set(startsWith(TrendingProducts.SNAPSHOT_KEY_PREFIX), json.capture(), any(Duration.class));
+        return json.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restoreFrom(TrendingProducts trending, String... snapshots) {
+        Cursor<String> keys = mock(Cursor.class);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < snapshots.length; i++) {
+            names.add(TrendingProducts.SNAPSHOT_KEY_PREFIX + i);
+            when(redisValues.get(TrendingProducts.SNAPSHOT_KEY_PREFIX + i)).thenReturn(snapshots[i]);
+        }
+        Iterator<String> iterator = names.iterator();
+        when(keys.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(keys.next()).thenAnswer(invocation -> iterator.next());
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+        trending.restore();
+    }
+}
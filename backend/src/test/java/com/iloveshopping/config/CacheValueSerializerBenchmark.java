@@ -0,0 +1,68 @@
+package com.iloveshopping.config;
+
+import com.iloveshopping.dto.response.CachedPage;
+import com.iloveshopping.dto.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares payload size and encode/decode time of the cache value formats on a page of product
+ * summaries. Skipped by default; run with
+ * {@code mvn test -Dtest=CacheValueSerializerBenchmark -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CacheValueSerializerBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Test
+    @DisplayName("Should report size and speed of JSON, Smile and Smile with LZ4")
+    void compareFormats() {
+        List<ProductResponse> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(CacheValueSerializerTest.product(i));
+        }
+        CachedPage<ProductResponse> page = new CachedPage<>(products, 200);
+
+        Result json = measure("json", new CacheValueSerializer(CacheValueSerializer.Format.JSON, 0), page);
+        Result smile = measure("smile", new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 0), page);
+        Result lz4 = measure("smile+lz4", new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 1024), page);
+
+        for (Result result : List.of(json, smile, lz4)) {
+            log.info("{}: {} bytes, encode {} ns, decode {} ns",
+                    result.name(), result.bytes(), result.encodeNanos(), result.decodeNanos());
+        }
+        assertThat(smile.bytes()).isLessThan(json.bytes());
+        assertThat(lz4.bytes()).isLessThan(smile.bytes());
+    }
+
+    private static Result measure(String name, RedisSerializer<Object> serializer, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        for (int i = 0; i < WARMUP; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes = serializer.serialize(value);
+        }
+        long encode = (System.nanoTime() - started) / ITERATIONS;
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.deserialize(bytes);
+        }
+        long decode = (System.nanoTime() - started) / ITERATIONS;
+        return new Result(name, bytes.length, encode, decode);
+    }
+
+    private record Result(String name, int bytes, long encodeNanos, long decodeNanos) {}
+}
@@ -0,0 +1,126 @@
+package com.iloveshopping.config;
+
+import com.iloveshopping.dto.response.CachedPage;
+import com.iloveshopping.dto.response.ProductResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the binary Redis cache value format.
+ */
+class CacheValueSerializerTest {
+
+    @Test
+    @DisplayName("Should round-trip a product as tagged Smile")
+    void shouldRoundTripSmile() {
+        // Given
+        CacheValueSerializer serializer = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 0);
+        ProductResponse product = product(1);
+        product.setCreatedAt(LocalDateTime.of(2026, 1, 15, 10, 30));
+
+        // When
+        byte[] bytes = serializer.serialize(product);
+
+        // Then
+        assertThat(bytes[0]).isEqualTo(CacheValueSerializer.SMILE);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(product);
+    }
+
+    @Test
+    @DisplayName("Should compress values above the threshold")
+    void shouldCompressLargeValues() {
+        // Given
+        CacheValueSerializer serializer = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 256);
+        List<ProductResponse> products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            products.add(product(i));
+        }
+
+        // When
+        byte[] bytes = serializer.serialize(products);
+
+        // Then
+        assertThat(bytes[0]).isEqualTo(CacheValueSerializer.SMILE_LZ4);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(products);
+    }
+
+    @Test
+    @DisplayName("Should round-trip a cached page in both formats")
+    void shouldRoundTripPage() {
+        // Given
+        PageRequest pageable = PageRequest.of(0, 2);
+        Page<ProductResponse> page = new PageImpl<>(List.of(product(1), product(2)), pageable, 7);
+        CachedPage<ProductResponse> cached = CachedPage.of(page);
+
+        for (CacheValueSerializer.Format format : CacheValueSerializer.Format.values()) {
+            CacheValueSerializer serializer = new CacheValueSerializer(format, 256);
+
+            // When
+            Object value = serializer.deserialize(serializer.serialize(cached));
+
+            // Then
+            assertThat(value).isEqualTo(cached);
+            assertThat(((CachedPage<?>) value).toPage(pageable)).isEqualTo(page);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read JSON written by nodes on the previous format")
+    void shouldReadLegacyJson() {
+        // Given
+        ProductResponse product = ProductResponse.builder().id(UUID.randomUUID()).name("Laptop").build();
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(product);
+
+        // When
+        Object value = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 1024).deserialize(legacy);
+
+        // Then
+        assertThat(value).isEqualTo(product);
+    }
+
+    @Test
+    @DisplayName("Should keep writing JSON while a rollout is in progress")
+    void shouldWriteJsonWhenConfigured() {
+        // Given
+        ProductResponse product = ProductResponse.builder().id(UUID.randomUUID()).name("Laptop").build();
+
+        // When
+        byte[] bytes = new CacheValueSerializer(CacheValueSerializer.Format.JSON, 1024).serialize(product);
+
+        // Then
+        assertThat(bytes[0]).isEqualTo((byte) '{');
+    }
+
+    static ProductResponse product(int i) {
+        return ProductResponse.builder()
+                .id(UUID.randomUUID())
+                .sku("SKU-" + i)
+                .name("Ultrabook " + i)
+                .slug("ultrabook-" + i)
+                .shortDescription("Thin and light laptop with a long battery life")
+                .price(new BigDecimal("1299.99"))
+                .compareAtPrice(new BigDecimal("1499.99"))
+                .stockQuantity(12)
+                .inStock(true)
+                .onSale(true)
+                .category(ProductResponse.CategoryInfo.builder().id(UUID.randomUUID()).name("Laptops").slug("laptops").build())
+                .brand(ProductResponse.BrandInfo.builder().id(UUID.randomUUID()).name("Acme").slug("acme").build())
+                .tags(new ArrayList<>(List.of("laptop", "ultrabook")))
+                .averageRating(new BigDecimal("4.50"))
+                .reviewCount(42)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.iloveshopping.config;
+
+import com.iloveshopping.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for read/write routing between the primary and read replicas.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource replica;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replica = mock(DataSource.class);
+        replicaLag(0);
+        routing = new ReplicaRoutingDataSource(mock(DataSource.class), List.of(replica), new ReadReplicaProperties());
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to a replica and writes to the primary")
+    void shouldSplitReadsFromWrites() {
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        inTransaction(true);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+
+        inTransaction(false);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when the replica lags or is down")
+    void shouldFailOverToPrimary() throws SQLException {
+        // Given
+        replicaLag(60);
+
+        // When
+        routing.checkReplicas();
+
+        // Then
+        inTransaction(true);
+        assertThat(routing.healthyReplicas()).isEmpty();
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        when(replica.getConnection()).thenThrow(new SQLException("down"));
+        routing.checkReplicas();
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    @DisplayName("Should keep a user's reads on the primary right after their own write")
+    void shouldReadYourWrites() {
+        // Given
+        signIn(UUID.randomUUID());
+        inTransaction(false);
+        TransactionSynchronizationManager.initSynchronization();
+        routing.determineCurrentLookupKey();
+
+        // When
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Then
+        inTransaction(true);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        signIn(UUID.randomUUID());
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+    }
+
+    private void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private void signIn(UUID userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "user@example.com", null, "Test", "User",
+                true, true, true, false, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private void replicaLag(double seconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(seconds);
+    }
+}
@@ -0,0 +1,166 @@
+package com.iloveshopping.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for stampede protection on cache loads.
+ */
+class StampedeProtectedCacheTest {
+
+    private ConcurrentMapCache backing;
+    private CacheLease lease;
+    private StampedeProtectedCache cache;
+
+    @BeforeEach
+    void setUp() {
+        backing = new ConcurrentMapCache("featuredProducts", false);
+        lease = mock(CacheLease.class);
+        when(lease.tryAcquire(anyString())).thenReturn("token");
+        cache = new StampedeProtectedCache(backing, lease, Duration.ofMinutes(10), Duration.ofMillis(200), 1.0);
+    }
+
+    @Test
+    @DisplayName("Should run one loader for concurrent misses on the same key")
+    void shouldLoadOncePerKey() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("page-0", () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "featured";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("featured");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should wait for the node holding the lease instead of loading")
+    void shouldWaitForLeaseHolder() {
+        // Given
+        when(lease.tryAcquire(anyString())).thenReturn(null);
+        new Thread(() -> {
+            sleep(50);
+            backing.put("page-0", new CacheEntry("from other node", 5, System.currentTimeMillis() + 60_000));
+        }).start();
+
+        // When
+        String value = cache.get("page-0", () -> "loaded here");
+
+        // Then
+        assertThat(value).isEqualTo("from other node");
+    }
+
+    @Test
+    @DisplayName("Should load itself when the lease holder never delivers")
+    void shouldLoadAfterLeaseWait() {
+        // Given
+        when(lease.tryAcquire(anyString())).thenReturn(null);
+
+        // When
+        String value = cache.get("page-0", () -> "loaded here");
+
+        // Then
+        assertThat(value).isEqualTo("loaded here");
+        assertThat(cache.get("page-0").get()).isEqualTo("loaded here");
+    }
+
+    @Test
+    @DisplayName("Should refresh an entry close to expiry while serving it")
+    void shouldRefreshEarly() {
+        // Given
+        backing.put("page-0", new CacheEntry("old", 60_000, System.currentTimeMillis() + 1));
+
+        // When
+        String value = cache.get("page-0", () -> "new");
+
+        // Then
+        assertThat(value).isEqualTo("new");
+        assertThat(((CacheEntry) backing.get("page-0").get()).value()).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("Should keep serving the current value when an early refresh fails")
+    void shouldServeCurrentValueWhenRefreshFails() {
+        // Given
+        backing.put("page-0", new CacheEntry("old", 60_000, System.currentTimeMillis() + 1));
+
+        // When
+        String value = cache.get("page-0", () -> {
+            throw new IllegalStateException("database down");
+        });
+
+        // Then
+        assertThat(value).isEqualTo("old");
+    }
+
+    @Test
+    @DisplayName("Should load when the stored value cannot be read")
+    void shouldTreatUnreadableValueAsMiss() {
+        // Given
+        Cache unreadable = mock(Cache.class);
+        when(unreadable.getName()).thenReturn("featuredProducts");
+        when(unreadable.get("page-0")).thenThrow(new SerializationException("no creator"));
+        StampedeProtectedCache protectedCache =
+                new StampedeProtectedCache(unreadable, lease, Duration.ofMinutes(10), Duration.ofMillis(200), 1.0);
+
+        // When
+        String value = protectedCache.get("page-0", () -> "loaded");
+
+        // Then
+        assertThat(value).isEqualTo("loaded");
+    }
+
+    @Test
+    @DisplayName("Should surface loader failures on a miss")
+    void shouldPropagateLoadFailure() {
+        assertThatThrownBy(() -> cache.get("page-0", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
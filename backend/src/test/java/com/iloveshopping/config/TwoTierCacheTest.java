@@ -0,0 +1,84 @@
+package com.iloveshopping.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the local tier in front of the shared cache.
+ */
+class TwoTierCacheTest {
+
+    private ConcurrentMapCache remote;
+    private List<String> published;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("featuredProducts", false);
+        published = new ArrayList<>();
+        cache = new TwoTierCache("featuredProducts", Caffeine.newBuilder().maximumSize(10).build(), remote,
+                (name, key) -> published.add(name + ":" + key));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the local tier")
+    void shouldFillLocalTierOnRemoteHit() {
+        // Given
+        remote.put("page-0", "featured");
+
+        // When
+        assertThat(cache.get("page-0").get()).isEqualTo("featured");
+        remote.evict("page-0");
+
+        // Then
+        assertThat(cache.get("page-0").get()).isEqualTo("featured");
+    }
+
+    @Test
+    @DisplayName("Should write both tiers and announce the key to other nodes")
+    void shouldPublishWrites() {
+        // When
+        cache.put("page-0", "featured");
+        cache.evict("page-1");
+        cache.clear();
+
+        // Then
+        assertThat(published).containsExactly("featuredProducts:page-0", "featuredProducts:page-1",
+                "featuredProducts:null");
+        assertThat(remote.get("page-0")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reload from the shared tier after another node invalidates the key")
+    void shouldDropLocalCopyOnInvalidation() {
+        // Given
+        cache.put("page-0", "old");
+        remote.put("page-0", "new");
+
+        // When
+        cache.evictLocal("page-0");
+
+        // Then
+        assertThat(cache.get("page-0").get()).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("Should load a missing value once and keep it locally")
+    void shouldLoadThroughBothTiers() {
+        // When
+        String loaded = cache.get("page-0", () -> "featured");
+
+        // Then
+        assertThat(loaded).isEqualTo("featured");
+        assertThat(remote.get("page-0").get()).isEqualTo("featured");
+        assertThat(cache.local().getIfPresent("page-0")).isEqualTo("featured");
+    }
+}
@@ -1,6 +1,12 @@
 package com.iloveshopping.controller;
 
+import com.iloveshopping.catalog.CatalogVersion;
+import com.iloveshopping.dto.response.CachedPage;
 import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.dto.response.SlicePage;
+import com.iloveshopping.repository.ProductVersion;
+import com.iloveshopping.search.ProductSearchCriteria;
+import com.iloveshopping.search.TotalMode;
 import com.iloveshopping.service.ProductService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,7 +16,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -21,6 +29,9 @@ import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +50,9 @@ class ProductControllerIntegrationTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private CatalogVersion catalogVersion;
+
     @Test
     @DisplayName("Should get all products with pagination")
     void shouldGetAllProducts() throws Exception {
@@ -65,6 +79,7 @@ class ProductControllerIntegrationTest {
         ProductResponse product = createSampleProduct();
         product.setId(productId);
         
+        when(productService.getProductVersion(productId)).thenReturn(new ProductVersion(productId, null, ""));
         when(productService.getProductById(productId)).thenReturn(product);
 
         // When & Then
@@ -81,6 +96,8 @@ class ProductControllerIntegrationTest {
         // Given
         ProductResponse product = createSampleProduct();
         
+        when(productService.getProductVersionBySlug("test-product"))
+                .thenReturn(new ProductVersion(product.getId(), null, ""));
         when(productService.getProductBySlug("test-product")).thenReturn(product);
 
         // When & Then
@@ -91,6 +108,117 @@ class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.slug").value("test-product"));
     }
 
+    @Test
+    @DisplayName("Should send validators and Cache-Control with product detail")
+    void shouldSendProductValidators() throws Exception {
+        // Given
+        UUID productId = UUID.randomUUID();
+        ProductResponse product = createSampleProduct();
+        product.setId(productId);
+        ProductVersion version = new ProductVersion(productId, null, "2024-05-01T12:00|5");
+
+        when(productService.getProductVersion(productId)).thenReturn(version);
+        when(productService.getProductById(productId)).thenReturn(product);
+
+        // When & Then
+        mockMvc.perform(get("/products/{id}", productId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, version.etag()))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                        "public, max-age=60, stale-while-revalidate=300"));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for an unchanged product without loading it")
+    void shouldAnswerNotModifiedForUnchangedProduct() throws Exception {
+        // Given
+        UUID productId = UUID.randomUUID();
+        ProductVersion version = new ProductVersion(productId, null, "2024-05-01T12:00|5");
+
+        when(productService.getProductVersion(productId)).thenReturn(version);
+
+        // When & Then
+        mockMvc.perform(get("/products/{id}", productId)
+                        .header(HttpHeaders.IF_NONE_MATCH, version.etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andExpect(header().string(HttpHeaders.ETAG, version.etag()));
+
+        verify(productService, never()).getProductById(productId);
+        verify(productService).recordView(version);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for an unchanged catalog listing before the handler runs")
+    void shouldAnswerNotModifiedForUnchangedListing() throws Exception {
+        // Given
+        String etag = "W/\"catalog-42\"";
+        when(catalogVersion.etag()).thenReturn(etag);
+
+        // When & Then
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL));
+
+        verify(productService, never()).getAllProducts(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should serve a listing with the catalog ETag once the catalog has changed")
+    void shouldServeChangedListing() throws Exception {
+        // Given
+        when(catalogVersion.etag()).thenReturn("W/\"catalog-43\"");
+        when(productService.getAllProducts(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(createSampleProduct()), PageRequest.of(0, 20), 1));
+
+        // When & Then
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, "W/\"catalog-42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"catalog-43\""))
+                .andExpect(jsonPath("$.data.content[0].name").value("Test Product"));
+    }
+
+    @Test
+    @DisplayName("Should count the total for any total other than estimate or none")
+    void shouldCountTotalForOtherTotalValues() throws Exception {
+        // Given
+        when(productService.getAllProducts(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(createSampleProduct()), PageRequest.of(0, 20), 1));
+
+        // When & Then
+        for (String total : List.of("exact", "EXACT", "", "bogus")) {
+            mockMvc.perform(get("/products").param("total", total))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements").value(1));
+        }
+
+        verify(productService, never()).getAllProducts(any(Pageable.class), any(TotalMode.class));
+    }
+
+    @Test
+    @DisplayName("Should serve a slice with an estimated total for total=estimate")
+    void shouldEstimateTotalWhenAsked() throws Exception {
+        // Given
+        SlicePage<ProductResponse> slice = SlicePage.<ProductResponse>builder()
+                .content(List.of(createSampleProduct()))
+                .size(20)
+                .totalElements(1000L)
+                .totalEstimated(true)
+                .build();
+        when(productService.getAllProducts(any(Pageable.class), eq(TotalMode.ESTIMATE))).thenReturn(slice);
+
+        // When & Then
+        mockMvc.perform(get("/products").param("total", "estimate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1000))
+                .andExpect(jsonPath("$.data.totalEstimated").value(true));
+
+        verify(productService, never()).getAllProducts(any(Pageable.class));
+    }
+
     @Test
     @DisplayName("Should search products with filters")
     void shouldSearchProductsWithFilters() throws Exception {
@@ -98,7 +226,7 @@ class ProductControllerIntegrationTest {
         ProductResponse product = createSampleProduct();
         Page<ProductResponse> productPage = new PageImpl<>(List.of(product));
         
-        when(productService.searchProducts(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+        when(productService.searchProducts(any(ProductSearchCriteria.class), any(), any(), any(Pageable.class)))
                 .thenReturn(productPage);
 
         // When & Then
@@ -115,6 +243,44 @@ class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.content").isArray());
     }
 
+    @Test
+    @DisplayName("Should run a search even when the catalog is unchanged, so it is recorded")
+    void shouldNotAnswerNotModifiedForSearch() throws Exception {
+        // Given
+        String etag = "W/\"catalog-42\"";
+        when(catalogVersion.etag()).thenReturn(etag);
+        when(productService.searchProducts(any(ProductSearchCriteria.class), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(createSampleProduct()), PageRequest.of(0, 20), 1));
+
+        // When & Then
+        mockMvc.perform(get("/products/search")
+                        .param("q", "test")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                        "public, max-age=30, stale-while-revalidate=120"))
+                .andExpect(jsonPath("$.data.content[0].name").value("Test Product"));
+
+        verify(productService).searchProducts(any(ProductSearchCriteria.class), any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should serve suggestions even when the catalog is unchanged")
+    void shouldNotAnswerNotModifiedForSuggestions() throws Exception {
+        // Given
+        String etag = "W/\"catalog-42\"";
+        when(catalogVersion.etag()).thenReturn(etag);
+        when(productService.getSearchSuggestions("test")).thenReturn(List.of("Test Product"));
+
+        // When & Then
+        mockMvc.perform(get("/products/suggestions")
+                        .param("q", "test")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]").value("Test Product"));
+    }
+
     @Test
     @DisplayName("Should get search suggestions")
     void shouldGetSearchSuggestions() throws Exception {
@@ -138,7 +304,7 @@ class ProductControllerIntegrationTest {
         // Given
         ProductResponse product = createSampleProduct();
         product.setFeatured(true);
-        Page<ProductResponse> productPage = new PageImpl<>(List.of(product));
+        CachedPage<ProductResponse> productPage = new CachedPage<>(List.of(product), 1);
         
         when(productService.getFeaturedProducts(any(Pageable.class))).thenReturn(productPage);
 
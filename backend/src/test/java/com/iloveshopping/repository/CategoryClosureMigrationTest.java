@@ -0,0 +1,135 @@
+package com.iloveshopping.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies the category closure triggers of the V4 migration against PostgreSQL.
+ * H2 runs neither the migrations nor plpgsql, so this needs Docker and is skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CategoryClosureMigrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+    }
+
+    @Test
+    @DisplayName("Should link a new category to itself and every ancestor of its parent")
+    void shouldLinkInsertedCategory() {
+        // When
+        UUID root = insert("Electronics", null);
+        UUID child = insert("Audio", root);
+        UUID grandchild = insert("Headphones", child);
+
+        // Then
+        assertThat(ancestors(grandchild)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                grandchild, 0, child, 1, root, 2));
+        assertThat(ancestors(root)).containsExactlyInAnyOrderEntriesOf(Map.of(root, 0));
+    }
+
+    @Test
+    @DisplayName("Should move a whole subtree under its new parent")
+    void shouldMoveSubtree() {
+        // Given
+        UUID oldRoot = insert("Home", null);
+        UUID newRoot = insert("Outdoor", null);
+        UUID moved = insert("Furniture", oldRoot);
+        UUID leaf = insert("Chairs", moved);
+
+        // When
+        move(moved, newRoot);
+
+        // Then
+        assertThat(ancestors(leaf)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                leaf, 0, moved, 1, newRoot, 2));
+        assertThat(ancestors(moved)).containsExactlyInAnyOrderEntriesOf(Map.of(moved, 0, newRoot, 1));
+        assertThat(descendants(oldRoot)).containsExactlyInAnyOrderEntriesOf(Map.of(oldRoot, 0));
+    }
+
+    @Test
+    @DisplayName("Should detach a subtree moved to the top level")
+    void shouldMoveSubtreeToRoot() {
+        // Given
+        UUID root = insert("Sports", null);
+        UUID moved = insert("Cycling", root);
+        UUID leaf = insert("Helmets", moved);
+
+        // When
+        move(moved, null);
+
+        // Then
+        assertThat(ancestors(leaf)).containsExactlyInAnyOrderEntriesOf(Map.of(leaf, 0, moved, 1));
+        assertThat(descendants(root)).containsExactlyInAnyOrderEntriesOf(Map.of(root, 0));
+    }
+
+    @Test
+    @DisplayName("Should reject moving a category under its own descendant")
+    void shouldRejectCycle() {
+        // Given
+        UUID root = insert("Books", null);
+        UUID child = insert("Fiction", root);
+        UUID grandchild = insert("Fantasy", child);
+
+        // When / Then
+        assertThatThrownBy(() -> move(root, grandchild))
+                .isInstanceOf(DataAccessException.class)
+                .hasMessageContaining("own descendant");
+        assertThat(ancestors(grandchild)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                grandchild, 0, child, 1, root, 2));
+    }
+
+    private static UUID insert(String name, UUID parentId) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO categories (id, name, slug, parent_id) VALUES (?, ?, ?, ?)",
+                id, name, name.toLowerCase() + "-" + id, parentId);
+        return id;
+    }
+
+    private static void move(UUID id, UUID parentId) {
+        jdbcTemplate.update("UPDATE categories SET parent_id = ? WHERE id = ?", parentId, id);
+    }
+
+    private static Map<UUID, Integer> ancestors(UUID id) {
+        return depths("SELECT ancestor_id AS related, depth FROM category_closure WHERE descendant_id = ?", id);
+    }
+
+    private static Map<UUID, Integer> descendants(UUID id) {
+        return depths("SELECT descendant_id AS related, depth FROM category_closure WHERE ancestor_id = ?", id);
+    }
+
+    private static Map<UUID, Integer> depths(String sql, UUID id) {
+        Map<UUID, Integer> depths = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            depths.put(rs.getObject("related", UUID.class), rs.getInt("depth"));
+        }, id);
+        return depths;
+    }
+}
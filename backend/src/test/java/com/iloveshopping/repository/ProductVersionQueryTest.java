@@ -0,0 +1,96 @@
+package com.iloveshopping.repository;
+
+import com.iloveshopping.entity.Brand;
+import com.iloveshopping.entity.Category;
+import com.iloveshopping.entity.Product;
+import com.iloveshopping.entity.ProductImage;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the product detail validator moves with content that does not move {@code updatedAt}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ProductVersionQueryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category category = Category.builder().name("Laptops").slug("laptops-" + System.nanoTime()).build();
+        entityManager.persist(category);
+        Brand brand = Brand.builder().name("Brand " + System.nanoTime()).slug("brand-" + System.nanoTime()).build();
+        entityManager.persist(brand);
+        product = Product.builder()
+                .sku("PV-" + System.nanoTime())
+                .name("Versioned")
+                .slug("versioned-" + System.nanoTime())
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(5)
+                .category(category)
+                .brand(brand)
+                .build();
+        product.addImage(ProductImage.builder().imageUrl("https://img/1.jpg").altText("Front").isPrimary(true).build());
+        entityManager.persist(product);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should find the same validator by id and by slug")
+    void shouldMatchByIdAndSlug() {
+        // When
+        ProductVersion byId = productRepository.findVersionById(product.getId()).orElseThrow();
+        ProductVersion bySlug = productRepository.findVersionBySlug(product.getSlug()).orElseThrow();
+
+        // Then
+        assertThat(byId.etag()).isEqualTo(bySlug.etag());
+        assertThat(byId.content()).contains("Front", "https://img/1.jpg");
+    }
+
+    @Test
+    @DisplayName("Should move the validator when an image changes without touching the product")
+    void shouldMoveWithImages() {
+        // Given
+        String before = productRepository.findVersionById(product.getId()).orElseThrow().etag();
+
+        // When
+        entityManager.createQuery("UPDATE ProductImage i SET i.altText = 'Back' WHERE i.product.id = :id")
+                .setParameter("id", product.getId())
+                .executeUpdate();
+
+        // Then
+        assertThat(productRepository.findVersionById(product.getId()).orElseThrow().etag()).isNotEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("Should move the validator on a bulk stock update")
+    void shouldMoveWithStock() {
+        // Given
+        String before = productRepository.findVersionById(product.getId()).orElseThrow().etag();
+
+        // When
+        productRepository.decreaseStock(product.getId(), 2);
+
+        // Then
+        assertThat(productRepository.findVersionById(product.getId()).orElseThrow().etag()).isNotEqualTo(before);
+    }
+}
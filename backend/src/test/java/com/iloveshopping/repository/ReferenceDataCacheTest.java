@@ -0,0 +1,107 @@
+package com.iloveshopping.repository;
+
+import com.iloveshopping.entity.Category;
+import com.iloveshopping.entity.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that reference data is served from the second-level cache once loaded.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Role role;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        role = roleRepository.save(Role.builder().name("ROLE_CACHE_" + System.nanoTime()).build());
+        category = categoryRepository.save(Category.builder().name("Cached")
+                .slug("cached-" + System.nanoTime()).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        roleRepository.delete(role);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    @DisplayName("Should resolve a role by name without SQL after the first lookup")
+    void shouldCacheRoleLookup() {
+        // Given
+        roleRepository.findByName(role.getName());
+        statistics.clear();
+
+        // When
+        Role cached = roleRepository.findByName(role.getName()).orElseThrow();
+
+        // Then
+        assertThat(cached.getId()).isEqualTo(role.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should serve the active category list from the query cache until categories change")
+    void shouldCacheCategoryTreeUntilWrite() {
+        // Given
+        categoryRepository.findByIsActiveTrueOrderByDisplayOrder();
+        statistics.clear();
+
+        // When
+        categoryRepository.findByIsActiveTrueOrderByDisplayOrder();
+        long cachedStatements = statistics.getPrepareStatementCount();
+        category.setName("Renamed");
+        categoryRepository.save(category);
+        statistics.clear();
+        boolean renamed = categoryRepository.findByIsActiveTrueOrderByDisplayOrder().stream()
+                .anyMatch(c -> c.getName().equals("Renamed"));
+
+        // Then
+        assertThat(cachedStatements).isZero();
+        assertThat(renamed).isTrue();
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should publish hit and miss counters per region")
+    void shouldPublishRegionMetrics() {
+        // When
+        roleRepository.findById(role.getId());
+        roleRepository.findById(role.getId());
+
+        // Then
+        assertThat(meterRegistry.get("cache.gets")
+                .tags("cache", "roles", "result", "hit").functionCounter().count()).isPositive();
+        assertThat(meterRegistry.find("cache.gets")
+                .tags("cache", "categories", "result", "miss").functionCounter()).isNotNull();
+    }
+}
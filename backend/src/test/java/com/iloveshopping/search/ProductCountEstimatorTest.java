@@ -0,0 +1,65 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the cached product count estimator.
+ */
+class ProductCountEstimatorTest {
+
+    private ProductRepository productRepository;
+    private ProductCountEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        estimator = new ProductCountEstimator(productRepository, new SyncTaskExecutor(), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    @DisplayName("Should answer with the planner estimate and then the cached exact count")
+    void shouldCacheExactCount() {
+        // Given
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder().onSale(true).build();
+        when(productRepository.estimateCount(any())).thenReturn(120L);
+        when(productRepository.countMatching(any())).thenReturn(97L);
+
+        // When
+        Long first = estimator.estimate(criteria);
+        Long second = estimator.estimate(criteria.toBuilder().build());
+
+        // Then
+        assertThat(first).isEqualTo(120L);
+        assertThat(second).isEqualTo(97L);
+        verify(productRepository, times(1)).countMatching(any());
+    }
+
+    @Test
+    @DisplayName("Should recount after a product changes")
+    void shouldRecountAfterProductChange() {
+        // Given
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder().build();
+        when(productRepository.countMatching(any())).thenReturn(10L, 11L);
+        estimator.estimate(criteria);
+
+        // When
+        estimator.onCatalogChanged();
+        estimator.estimate(criteria);
+
+        // Then
+        assertThat(estimator.estimate(criteria)).isEqualTo(11L);
+    }
+}
@@ -0,0 +1,363 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.exception.BadRequestException;
+import com.iloveshopping.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the in-memory product search index.
+ */
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    private final UUID laptopId = UUID.randomUUID();
+    private final UUID sleeveId = UUID.randomUUID();
+    private final UUID phoneId = UUID.randomUUID();
+    private final UUID audioCategory = UUID.randomUUID();
+    private final UUID colorAttribute = UUID.randomUUID();
+    private final Map<UUID, ProductDocument> documents = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(mock(ProductRepository.class), mock(PlatformTransactionManager.class),
+                event -> { }, true, 100, true);
+        index.upsert(document(laptopId, "LAP-15", "Gaming Laptop 15", "Fast laptop with RGB keyboard",
+                List.of("gaming"), null, "1299.00", null, 0));
+        index.upsert(document(sleeveId, "SLV-01", "Laptop Sleeve", "Protective cases for laptops",
+                List.of("accessories"), null, "29.00", "39.00", 5));
+        index.upsert(document(phoneId, "PHN-X", "Smartphone X", "Wireless charging and a great camera",
+                List.of("mobile"), audioCategory, "899.00", null, 10));
+        index.upsert(withColor(laptopId, "black"));
+        index.upsert(withColor(sleeveId, "grey"));
+    }
+
+    @Nested
+    @DisplayName("Analyzer Tests")
+    class AnalyzerTests {
+
+        @Test
+        @DisplayName("Should collapse plural and inflected forms to one stem")
+        void shouldStemInflectedForms() {
+            assertThat(TextAnalyzer.analyze("Cases case")).containsExactly("cas", "cas");
+            assertThat(TextAnalyzer.analyze("charging charged charge")).containsOnly("charg");
+        }
+
+        @Test
+        @DisplayName("Should drop stop words and punctuation")
+        void shouldDropStopWords() {
+            assertThat(TextAnalyzer.analyze("The best, of the BEST!")).containsExactly("best", "best");
+        }
+    }
+
+    @Nested
+    @DisplayName("Keyword Search Tests")
+    class KeywordSearchTests {
+
+        @Test
+        @DisplayName("Should rank name matches above description matches")
+        void shouldRankNameMatchesFirst() {
+            // When
+            SearchHits hits = search(criteria("laptop"), ProductSort.RELEVANCE);
+
+            // Then
+            assertThat(hits.total()).isEqualTo(2);
+            assertThat(hits.ids()).first().isIn(laptopId, sleeveId);
+            assertThat(hits.ids()).doesNotContain(phoneId);
+        }
+
+        @Test
+        @DisplayName("Should require every query term to match")
+        void shouldIntersectTerms() {
+            assertThat(search(criteria("laptop sleeve"), ProductSort.RELEVANCE).ids()).containsExactly(sleeveId);
+        }
+
+        @Test
+        @DisplayName("Should match the last term as a prefix")
+        void shouldMatchPrefix() {
+            assertThat(search(criteria("smartph"), ProductSort.RELEVANCE).ids()).containsExactly(phoneId);
+        }
+
+        @Test
+        @DisplayName("Should match SKU and tags")
+        void shouldMatchSkuAndTags() {
+            assertThat(search(criteria("phn-x"), ProductSort.RELEVANCE).ids()).containsExactly(phoneId);
+            assertThat(search(criteria("accessories"), ProductSort.RELEVANCE).ids()).containsExactly(sleeveId);
+        }
+
+        @Test
+        @DisplayName("Should match nothing for a query of only stop words")
+        void shouldNotMatchStopWordQuery() {
+            SearchHits hits = search(criteria("the and of"), ProductSort.RELEVANCE);
+
+            assertThat(hits.ids()).isEmpty();
+            assertThat(hits.total()).isZero();
+            assertThat(search(criteria("?!"), ProductSort.PRICE_ASC).ids()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should stop matching removed products")
+        void shouldRemoveProducts() {
+            // When
+            index.remove(sleeveId);
+
+            // Then
+            assertThat(search(criteria("laptop"), ProductSort.RELEVANCE).ids()).containsExactly(laptopId);
+            assertThat(index.size()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Filter and Sort Tests")
+    class FilterAndSortTests {
+
+        @Test
+        @DisplayName("Should intersect keyword hits with faceted filters")
+        void shouldApplyFilters() {
+            ProductSearchCriteria onSaleLaptops = criteria("laptop").toBuilder().onSale(true).build();
+            ProductSearchCriteria inCategory = criteria("camera").toBuilder().categoryId(audioCategory).build();
+
+            assertThat(search(onSaleLaptops, ProductSort.RELEVANCE).ids()).containsExactly(sleeveId);
+            assertThat(search(inCategory, ProductSort.RELEVANCE).ids()).containsExactly(phoneId);
+        }
+
+        @Test
+        @DisplayName("Should include products of subcategories once the subtree is resolved")
+        void shouldFilterCategorySubtree() {
+            UUID electronics = UUID.randomUUID();
+            ProductSearchCriteria direct = ProductSearchCriteria.builder().categoryId(electronics).build();
+            ProductSearchCriteria subtree = direct.toBuilder().categorySubtree(Set.of(electronics, audioCategory)).build();
+
+            assertThat(search(direct, ProductSort.PRICE_ASC).total()).isZero();
+            assertThat(search(subtree, ProductSort.PRICE_ASC).ids()).containsExactly(phoneId);
+        }
+
+        @Test
+        @DisplayName("Should sort and page by price")
+        void shouldSortAndPage() {
+            ProductSearchCriteria all = ProductSearchCriteria.builder().query("laptop").build();
+
+            SearchHits firstPage = index.search(all, ProductSort.PRICE_DESC, 0, 1);
+            SearchHits secondPage = index.search(all, ProductSort.PRICE_DESC, 1, 1);
+
+            assertThat(firstPage.ids()).containsExactly(laptopId);
+            assertThat(secondPage.ids()).containsExactly(sleeveId);
+            assertThat(secondPage.total()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should resume after the cursor position")
+        void shouldSeekAfterCursor() {
+            ProductSearchCriteria all = ProductSearchCriteria.builder().build();
+
+            // When
+            CursorHits firstPage = index.seek(all, ProductSort.PRICE_ASC, null, 2);
+            ProductCursor cursor = ProductCursor.decode(firstPage.next().encode());
+            CursorHits lastPage = index.seek(all, ProductSort.PRICE_ASC, cursor, 2);
+
+            // Then
+            assertThat(firstPage.ids()).containsExactly(sleeveId, phoneId);
+            assertThat(lastPage.ids()).containsExactly(laptopId);
+            assertThat(lastPage.next()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should break price ties by unsigned id order like PostgreSQL")
+        void shouldTieBreakLikePostgres() {
+            // Given
+            UUID low = UUID.fromString("7fffffff-0000-0000-0000-000000000000");
+            UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+            index.upsert(document(high, "CBL-2", "Cable B", "USB cable", List.of(), null, "5.00", null, 0));
+            index.upsert(document(low, "CBL-1", "Cable A", "USB cable", List.of(), null, "5.00", null, 0));
+            ProductSearchCriteria all = ProductSearchCriteria.builder().build();
+
+            // When
+            CursorHits firstPage = index.seek(all, ProductSort.PRICE_ASC, null, 1);
+            CursorHits secondPage = index.seek(all, ProductSort.PRICE_ASC,
+                    ProductCursor.decode(firstPage.next().encode()), 1);
+
+            // Then
+            assertThat(firstPage.ids()).containsExactly(low);
+            assertThat(secondPage.ids()).containsExactly(high);
+        }
+
+        @Test
+        @DisplayName("Should reject a cursor issued for another sort order")
+        void shouldRejectMismatchedCursor() {
+            ProductSearchCriteria all = ProductSearchCriteria.builder().build();
+            ProductCursor cursor = index.seek(all, ProductSort.PRICE_ASC, null, 1).next();
+
+            assertThatThrownBy(() -> index.seek(all, ProductSort.NEWEST, cursor, 1))
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Facet Tests")
+    class FacetTests {
+
+        @Test
+        @DisplayName("Should keep other values of the selected facet visible")
+        void shouldCountFacetsDisjunctively() {
+            // Given
+            ProductSearchCriteria inCategory = ProductSearchCriteria.builder().categoryId(audioCategory).build();
+
+            // When
+            FacetCounts counts = index.facets(inCategory);
+
+            // Then
+            assertThat(counts.getTotal()).isEqualTo(1);
+            assertThat(counts.getCategories()).containsEntry(audioCategory, 1L);
+            assertThat(counts.getOnSale()).isZero();
+            assertThat(counts.getPriceBucket(FacetCounts.priceBucket(new BigDecimal("899.00")))).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should count the selected filter's alternatives from the keyword matches")
+        void shouldCountOnSaleAgainstOtherFilters() {
+            // When
+            FacetCounts counts = index.facets(criteria("laptop").toBuilder().onSale(true).build());
+
+            // Then
+            assertThat(counts.getTotal()).isEqualTo(1);
+            assertThat(counts.getOnSale()).isEqualTo(1);
+            assertThat(counts.getPriceBucket(FacetCounts.priceBucket(new BigDecimal("1299.00")))).isZero();
+            assertThat(FacetCounts.priceBucket(new BigDecimal("29.00"))).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Attribute Filter Tests")
+    class AttributeFilterTests {
+
+        @Test
+        @DisplayName("Should match any listed value of a filtered attribute")
+        void shouldFilterByAttributeValues() {
+            ProductSearchCriteria black = ProductSearchCriteria.builder()
+                    .attributes(Map.of(colorAttribute, Set.of("black"))).build();
+            ProductSearchCriteria blackOrGrey = ProductSearchCriteria.builder()
+                    .attributes(Map.of(colorAttribute, Set.of("black", "grey"))).build();
+
+            assertThat(search(black, ProductSort.PRICE_ASC).ids()).containsExactly(laptopId);
+            assertThat(search(blackOrGrey, ProductSort.PRICE_ASC).ids()).containsExactly(sleeveId, laptopId);
+        }
+
+        @Test
+        @DisplayName("Should update attribute bitmaps when a product changes")
+        void shouldReindexAttributeChanges() {
+            // Given
+            ProductSearchCriteria grey = ProductSearchCriteria.builder()
+                    .attributes(Map.of(colorAttribute, Set.of("grey"))).build();
+
+            // When
+            index.upsert(withColor(laptopId, "grey"));
+
+            // Then
+            assertThat(search(grey, ProductSort.PRICE_ASC).ids()).containsExactly(sleeveId, laptopId);
+            assertThat(index.facets(grey).getAttributes().get(colorAttribute)).containsEntry("grey", 2L)
+                    .doesNotContainKey("black");
+        }
+
+        @Test
+        @DisplayName("Should keep other values of a filtered attribute in its facet")
+        void shouldCountAttributeFacetsDisjunctively() {
+            ProductSearchCriteria black = ProductSearchCriteria.builder()
+                    .attributes(Map.of(colorAttribute, Set.of("black"))).build();
+
+            FacetCounts counts = index.facets(black);
+
+            assertThat(counts.getTotal()).isEqualTo(1);
+            assertThat(counts.getAttributes().get(colorAttribute))
+                    .containsEntry("black", 1L)
+                    .containsEntry("grey", 1L);
+        }
+
+        @Test
+        @DisplayName("Should narrow price ranges inside a band")
+        void shouldFilterPriceWithinBand() {
+            ProductSearchCriteria range = ProductSearchCriteria.builder()
+                    .minPrice(new BigDecimal("30")).maxPrice(new BigDecimal("900")).build();
+
+            assertThat(search(range, ProductSort.PRICE_ASC).ids()).containsExactly(phoneId);
+        }
+    }
+
+    @Nested
+    @DisplayName("Fuzzy Search Tests")
+    class FuzzySearchTests {
+
+        @Test
+        @DisplayName("Should fall back to close spellings when nothing matches exactly")
+        void shouldMatchMisspelledTerms() {
+            assertThat(search(criteria("lpatop"), ProductSort.RELEVANCE).ids())
+                    .containsExactlyInAnyOrder(laptopId, sleeveId);
+            assertThat(search(criteria("smartphnoe"), ProductSort.RELEVANCE).ids()).containsExactly(phoneId);
+            assertThat(search(criteria("fsat keybord"), ProductSort.RELEVANCE).ids()).containsExactly(laptopId);
+        }
+
+        @Test
+        @DisplayName("Should not match terms beyond the edit distance bound")
+        void shouldBoundEditDistance() {
+            assertThat(search(criteria("lxxxop"), ProductSort.RELEVANCE).total()).isZero();
+            assertThat(search(criteria("xyzzy"), ProductSort.RELEVANCE).total()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should forget the spellings of removed products")
+        void shouldDropRemovedTerms() {
+            // When
+            index.remove(phoneId);
+
+            // Then
+            assertThat(search(criteria("smartphnoe"), ProductSort.RELEVANCE).total()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should count adjacent transpositions as one edit")
+        void shouldCountTranspositionsOnce() {
+            assertThat(TermTrigrams.editDistance("lpatop", "laptop", 2)).isEqualTo(1);
+            assertThat(TermTrigrams.editDistance("laptop", "lap", 2)).isEqualTo(3);
+        }
+    }
+
+    private SearchHits search(ProductSearchCriteria criteria, ProductSort sort) {
+        return index.search(criteria, sort, 0, 20);
+    }
+
+    private ProductDocument withColor(UUID id, String color) {
+        ProductDocument doc = documents.get(id);
+        return new ProductDocument(doc.id(), doc.sku(), doc.name(), doc.description(), doc.tags(),
+                Map.of(colorAttribute, color), doc.categoryId(), doc.brandId(), doc.price(), doc.compareAtPrice(),
+                doc.averageRating(), doc.stockQuantity(), doc.soldCount(), doc.createdAt());
+    }
+
+    private static ProductSearchCriteria criteria(String query) {
+        return ProductSearchCriteria.builder().query(query).build();
+    }
+
+    private ProductDocument document(UUID id, String sku, String name, String description,
+                                            List<String> tags, UUID categoryId, String price,
+                                            String compareAtPrice, int soldCount) {
+        ProductDocument doc = new ProductDocument(id, sku, name, description, tags, Map.of(), categoryId, null,
+                new BigDecimal(price), compareAtPrice != null ? new BigDecimal(compareAtPrice) : null,
+                new BigDecimal("4.5"), 10, soldCount, LocalDateTime.now());
+        documents.put(id, doc);
+        return doc;
+    }
+}
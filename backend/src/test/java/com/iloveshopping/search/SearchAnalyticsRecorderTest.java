@@ -0,0 +1,135 @@
+package com.iloveshopping.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for buffered search analytics.
+ */
+class SearchAnalyticsRecorderTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    @Test
+    @DisplayName("Should write one history row per search and one upsert per distinct term")
+    @SuppressWarnings("unchecked")
+    void shouldAggregatePopularSearches() {
+        // Given
+        SearchAnalyticsRecorder recorder = recorder(100);
+        recorder.record("Laptop", 12L);
+        recorder.record("  laptop ", 12L);
+        recorder.record("Phone", 3L);
+
+        // When
+        recorder.flush();
+
+        // Then
+        ArgumentCaptor<Collection<Object>> history = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(contains("search_history"), history.capture(), anyInt(), any());
+        assertThat(history.getValue()).hasSize(3);
+
+        ArgumentCaptor<Collection<Object>> popular = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(contains("popular_searches"), popular.capture(), anyInt(), any());
+        assertThat(popular.getValue())
+                .extracting(row -> (Object) ((Map.Entry<?, ?>) row).getKey())
+                .containsExactly("laptop", "phone");
+    }
+
+    @Test
+    @DisplayName("Should still count searches whose history rows could not be written")
+    void shouldUpsertPopularDespiteHistoryFailure() {
+        // Given
+        when(jdbcTemplate.batchUpdate(contains("search_history"), any(Collection.class), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        SearchAnalyticsRecorder recorder = recorder(10);
+        recorder.record("laptop", 12L);
+
+        // When
+        recorder.flush();
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(contains("popular_searches"), any(Collection.class), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Should carry counts that could not be written into the next flush")
+    @SuppressWarnings("unchecked")
+    void shouldRetryFailedUpsert() {
+        // Given
+        when(jdbcTemplate.batchUpdate(contains("popular_searches"), any(Collection.class), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[0][]);
+        SearchAnalyticsRecorder recorder = recorder(10);
+        recorder.record("laptop", 12L);
+        recorder.flush();
+        recorder.record("laptop", 12L);
+        recorder.record("phone", 3L);
+
+        // When
+        recorder.flush();
+
+        // Then
+        ArgumentCaptor<Collection<Object>> popular = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("popular_searches"), popular.capture(), anyInt(), any());
+        assertThat(popular.getAllValues().get(1))
+                .extracting(row -> ((SearchAnalyticsRecorder.TermTotal) ((Map.Entry<?, ?>) row).getValue()).count())
+                .containsExactly(2, 1);
+    }
+
+    @Test
+    @DisplayName("Should drop and count events once the buffer is full")
+    void shouldCountDroppedEvents() {
+        // Given
+        SearchAnalyticsRecorder recorder = recorder(2);
+
+        // When
+        for (String query : List.of("a", "b", "c", "d")) {
+            recorder.record(query, 1L);
+        }
+
+        // Then
+        assertThat(recorder.getDroppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when nothing was recorded")
+    void shouldSkipEmptyFlush() {
+        // Given
+        SearchAnalyticsRecorder recorder = recorder(10);
+        recorder.record("   ", 0L);
+
+        // When
+        recorder.flush();
+
+        // Then
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), any(Collection.class), anyInt(), any());
+    }
+
+    private SearchAnalyticsRecorder recorder(int capacity) {
+        return new SearchAnalyticsRecorder(jdbcTemplate, new SimpleMeterRegistry(), true, capacity, 100, 1000);
+    }
+}
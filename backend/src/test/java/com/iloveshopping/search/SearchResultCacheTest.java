@@ -0,0 +1,219 @@
+package com.iloveshopping.search;
+
+import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.event.AttributeChangedEvent;
+import com.iloveshopping.event.BrandChangedEvent;
+import com.iloveshopping.event.CategoryChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent;
+import com.iloveshopping.event.ProductChangedEvent.ChangeType;
+import com.iloveshopping.event.ProductChangedEvent.ProductState;
+import com.iloveshopping.event.ProductImageChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the normalized search result cache.
+ */
+class SearchResultCacheTest {
+
+    private final UUID electronics = UUID.randomUUID();
+    private final UUID books = UUID.randomUUID();
+    private final UUID acme = UUID.randomUUID();
+
+    private SearchResultCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SearchResultCache(new SimpleMeterRegistry(), true,
+                Duration.ofMinutes(2), 100, Duration.ofMinutes(10), 100);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should share entries between criteria with the same signature")
+    void shouldReuseEquivalentCriteria() {
+        // Given
+        ProductSearchCriteria first = ProductSearchCriteria.builder().query(" Gaming  Laptop").build();
+        ProductSearchCriteria second = ProductSearchCriteria.builder().query("gaming laptop").build();
+
+        // When
+        load(first);
+        load(second);
+
+        // Then
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should evict only entries whose category or brand can contain the changed product")
+    void shouldEvictSelectively() {
+        // Given
+        ProductSearchCriteria inElectronics = ProductSearchCriteria.builder().categoryId(electronics).build();
+        ProductSearchCriteria inBooks = ProductSearchCriteria.builder().categoryId(books).build();
+        ProductSearchCriteria byAcme = ProductSearchCriteria.builder().brandId(acme).build();
+        load(inElectronics);
+        load(inBooks);
+        load(byAcme);
+
+        // When
+        cache.onProductChanged(changed(new ProductState(electronics, UUID.randomUUID(), true)));
+
+        // Then
+        assertThat(cache.resultCount()).isEqualTo(2);
+        load(inBooks);
+        load(byAcme);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Should evict entries for ancestor categories of a changed product")
+    void shouldEvictAncestorCategories() {
+        // Given
+        UUID laptops = UUID.randomUUID();
+        load(ProductSearchCriteria.builder().categoryId(electronics).categorySubtree(Set.of(electronics, laptops))
+                .build());
+        load(inBooks());
+
+        // When
+        cache.onProductChanged(changed(new ProductState(laptops, acme, true)));
+
+        // Then
+        assertThat(cache.resultCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evict category-filtered entries when the hierarchy changes")
+    void shouldEvictOnCategoryChange() {
+        // Given
+        load(inBooks());
+        load(ProductSearchCriteria.builder().brandId(acme).build());
+
+        // When
+        cache.onCategoryChanged(new CategoryChangedEvent(books));
+
+        // Then
+        assertThat(cache.resultCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evict entries for the category a product moved out of")
+    void shouldEvictPreviousScope() {
+        // Given
+        load(ProductSearchCriteria.builder().categoryId(books).build());
+        ProductChangedEvent moved = new ProductChangedEvent(UUID.randomUUID(), ChangeType.UPDATED,
+                new ProductState(books, acme, true), new ProductState(electronics, acme, true));
+
+        // When
+        cache.onProductChanged(moved);
+
+        // Then
+        assertThat(cache.resultCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should evict only entries filtering on a changed attribute")
+    void shouldEvictByAttribute() {
+        // Given
+        UUID color = UUID.randomUUID();
+        load(ProductSearchCriteria.builder().attributes(Map.of(color, Set.of("black"))).build());
+        load(ProductSearchCriteria.builder().categoryId(books).build());
+
+        // When
+        cache.onAttributeChanged(new AttributeChangedEvent(color, UUID.randomUUID()));
+
+        // Then
+        assertThat(cache.resultCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not store results loaded across an invalidation")
+    void shouldDiscardLoadsRacingInvalidation() {
+        // Given
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder().categoryId(books).build();
+        String key = SearchResultCache.key(criteria, null, ProductSort.NEWEST, 0, 20);
+
+        // When
+        cache.getOrLoad(key, criteria, () -> {
+            cache.onProductChanged(changed(new ProductState(books, acme, true)));
+            return new SearchHits(List.of(), 0);
+        });
+
+        // Then
+        assertThat(cache.resultCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hydrate summaries in order and load only the missing ones")
+    void shouldLoadMissingSummaries() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        cache.getSummaries(List.of(first), this::summaries);
+
+        // When
+        List<ProductResponse> page = cache.getSummaries(List.of(second, first), ids -> {
+            assertThat(ids).containsExactly(second);
+            return summaries(ids);
+        });
+
+        // Then
+        assertThat(page).extracting(ProductResponse::getId).containsExactly(second, first);
+    }
+
+    @Test
+    @DisplayName("Should drop the summaries naming a changed brand and the summary of a product whose images changed")
+    void shouldEvictSummariesOnBrandAndImageChanges() {
+        // Given
+        UUID byAcme = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        UUID pictured = UUID.randomUUID();
+        List<UUID> ids = List.of(byAcme, other, pictured);
+        cache.getSummaries(ids, missing -> missing.stream().collect(Collectors.toMap(id -> id, id -> {
+            UUID brandId = byAcme.equals(id) ? acme : UUID.randomUUID();
+            return ProductResponse.builder().id(id).brand(ProductResponse.BrandInfo.builder().id(brandId).build()).build();
+        })));
+
+        // When
+        cache.onBrandChanged(new BrandChangedEvent(acme));
+        cache.onProductImageChanged(new ProductImageChangedEvent(pictured));
+
+        // Then
+        cache.getSummaries(ids, missing -> {
+            assertThat(missing).containsExactly(byAcme, pictured);
+            return summaries(missing);
+        });
+    }
+
+    private void load(ProductSearchCriteria criteria) {
+        String key = SearchResultCache.key(criteria, SearchMode.INDEX, ProductSort.NEWEST, 0, 20);
+        cache.getOrLoad(key, criteria, () -> {
+            loads.incrementAndGet();
+            return new SearchHits(List.of(UUID.randomUUID()), 1);
+        });
+    }
+
+    private ProductSearchCriteria inBooks() {
+        return ProductSearchCriteria.builder().categoryId(books).build();
+    }
+
+    private Map<UUID, ProductResponse> summaries(List<UUID> ids) {
+        return ids.stream().collect(Collectors.toMap(id -> id, id -> ProductResponse.builder().id(id).build()));
+    }
+
+    private static ProductChangedEvent changed(ProductState state) {
+        return new ProductChangedEvent(UUID.randomUUID(), ChangeType.UPDATED, state, state);
+    }
+}
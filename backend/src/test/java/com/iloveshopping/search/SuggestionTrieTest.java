@@ -0,0 +1,71 @@
+package com.iloveshopping.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the autocomplete radix trie.
+ */
+class SuggestionTrieTest {
+
+    @Test
+    @DisplayName("Should complete prefixes that end inside a compressed edge")
+    void shouldCompleteInsideEdge() {
+        // Given
+        SuggestionTrie trie = new SuggestionTrie.Builder(10)
+                .add("gaming laptop", "Gaming Laptop", 5)
+                .add("garden hose", "Garden Hose", 3)
+                .build();
+
+        // When / Then
+        assertThat(trie.complete("ga")).containsExactly("Gaming Laptop", "Garden Hose");
+        assertThat(trie.complete("gam")).containsExactly("Gaming Laptop");
+        assertThat(trie.complete("gaming l")).containsExactly("Gaming Laptop");
+        assertThat(trie.complete("gx")).isEmpty();
+        assertThat(trie.complete("gaming laptops")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return the top-k completions by weight")
+    void shouldRankByWeight() {
+        // Given
+        SuggestionTrie trie = new SuggestionTrie.Builder(2)
+                .add("phone case", "Phone Case", 10)
+                .add("phone charger", "Phone Charger", 50)
+                .add("phone stand", "Phone Stand", 30)
+                .build();
+
+        // When
+        List<String> suggestions = trie.complete("ph");
+
+        // Then
+        assertThat(suggestions).containsExactly("Phone Charger", "Phone Stand");
+    }
+
+    @Test
+    @DisplayName("Should list a display string once when several of its keys match")
+    void shouldDeduplicateDisplayStrings() {
+        // Given
+        SuggestionTrie trie = new SuggestionTrie.Builder(10)
+                .add("lamp light", "Lamp Light", 7)
+                .add("light", "Lamp Light", 7)
+                .add("light bulb", "Light Bulb", 4)
+                .build();
+
+        // When / Then
+        assertThat(trie.complete("l")).containsExactly("Lamp Light", "Light Bulb");
+        assertThat(trie.complete("li")).containsExactly("Lamp Light", "Light Bulb");
+        assertThat(trie.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should return nothing from an empty trie")
+    void shouldHandleEmptyTrie() {
+        assertThat(SuggestionTrie.empty().complete("any")).isEmpty();
+        assertThat(SuggestionTrie.empty().size()).isZero();
+    }
+}
@@ -0,0 +1,202 @@
+package com.iloveshopping.service;
+
+import com.iloveshopping.dto.response.ProductResponse;
+import com.iloveshopping.entity.Brand;
+import com.iloveshopping.entity.Category;
+import com.iloveshopping.entity.CategoryClosure;
+import com.iloveshopping.entity.Product;
+import com.iloveshopping.entity.ProductAttribute;
+import com.iloveshopping.entity.ProductAttributeValue;
+import com.iloveshopping.entity.ProductImage;
+import com.iloveshopping.entity.Tag;
+import com.iloveshopping.search.ProductSearchCriteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the number of SQL statements a listing page or product detail costs, so lazy brand,
+ * image, attribute or tag loads per product (N+1) cannot creep back in.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.search.result-cache.enabled=false"
+})
+@ActiveProfiles("test")
+@Transactional
+class ProductServiceQueryCountTest {
+
+    private static final int PRODUCTS = 25;
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+    private final List<UUID> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        List<ProductAttribute> attributes = new ArrayList<>();
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ProductAttribute attribute = ProductAttribute.builder()
+                    .name("attr-" + i + "-" + System.nanoTime()).displayName("Attribute " + i).build();
+            entityManager.persist(attribute);
+            attributes.add(attribute);
+            Tag tag = Tag.builder().name("tag-" + i + "-" + System.nanoTime()).slug("tag-" + i + "-" + System.nanoTime())
+                    .build();
+            entityManager.persist(tag);
+            tags.add(tag);
+        }
+
+        category = Category.builder().name("Laptops").slug("laptops-" + System.nanoTime()).build();
+        entityManager.persist(category);
+        // Maintained by a trigger in PostgreSQL; H2 has no trigger, so the self link is inserted here
+        entityManager.persist(new CategoryClosure(category.getId(), category.getId(), 0));
+        for (int i = 0; i < PRODUCTS; i++) {
+            Brand brand = Brand.builder().name("Brand " + i + "-" + System.nanoTime())
+                    .slug("brand-" + i + "-" + System.nanoTime()).build();
+            entityManager.persist(brand);
+            Product product = Product.builder()
+                    .sku("QC-" + i + "-" + System.nanoTime())
+                    .name("Product " + i)
+                    .slug("product-" + i + "-" + System.nanoTime())
+                    .price(new BigDecimal("10.00").add(BigDecimal.valueOf(i)))
+                    .compareAtPrice(new BigDecimal("100.00"))
+                    .stockQuantity(5)
+                    .soldCount(i)
+                    .category(category)
+                    .brand(brand)
+                    .build();
+            product.addImage(ProductImage.builder().imageUrl("https://img/" + i + "/1.jpg").isPrimary(true).build());
+            product.addImage(ProductImage.builder().imageUrl("https://img/" + i + "/2.jpg").displayOrder(1).build());
+            for (ProductAttribute attribute : attributes) {
+                product.getAttributeValues().add(ProductAttributeValue.builder()
+                        .product(product).attribute(attribute).value("value-" + i).build());
+            }
+            product.getTags().addAll(tags);
+            entityManager.persist(product);
+            productIds.add(product.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should load a page of all products in a fixed number of statements")
+    void shouldBoundAllProducts() {
+        assertStatements(() -> productService.getAllProducts(PAGE), 3);
+    }
+
+    @Test
+    @DisplayName("Should load a page of best sellers in a fixed number of statements")
+    void shouldBoundBestSellers() {
+        assertStatements(() -> productService.getBestSellers(PAGE), 3);
+    }
+
+    @Test
+    @DisplayName("Should load a page of sale products in a fixed number of statements")
+    void shouldBoundOnSaleProducts() {
+        assertStatements(() -> productService.getOnSaleProducts(PAGE), 3);
+    }
+
+    @Test
+    @DisplayName("Should load a category page in a fixed number of statements")
+    void shouldBoundCategoryProducts() {
+        assertStatements(() -> productService.getProductsByCategory(category.getId(), PAGE), 3);
+    }
+
+    @Test
+    @DisplayName("Should load a filtered search page in a fixed number of statements")
+    void shouldBoundSearch() {
+        ProductSearchCriteria criteria = ProductSearchCriteria.builder().categoryId(category.getId()).build();
+        // Id page, count, products with brands, images
+        assertStatements(() -> productService.searchProducts(criteria, "price", "asc", PAGE), 4);
+    }
+
+    @Test
+    @DisplayName("Should assemble product detail in a fixed number of statements")
+    void shouldBoundProductDetail() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ProductResponse product = productService.getProductById(productIds.get(0));
+
+        assertThat(product.getImages()).hasSize(2);
+        assertThat(product.getAttributes()).hasSize(4).allSatisfy(attribute ->
+                assertThat(attribute.getDisplayName()).startsWith("Attribute"));
+        assertThat(product.getTags()).hasSize(4);
+        assertThat(product.getBrand()).isNotNull();
+        // Product with category and brand, images, attribute values, tags; views are written in batches
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should assemble several products for comparison in the same number of statements")
+    void shouldBoundComparison() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<UUID> ids = List.of(productIds.get(3), productIds.get(1), productIds.get(2));
+        List<ProductResponse> products = productService.getProductsForComparison(ids);
+
+        assertThat(products).extracting(ProductResponse::getId).containsExactlyElementsOf(ids);
+        assertThat(products).allSatisfy(product -> {
+            assertThat(product.getAttributes()).hasSize(4);
+            assertThat(product.getTags()).hasSize(4);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should read listing pages as projections without managed entities")
+    void shouldNotLoadEntities() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        productService.getNewArrivals(PAGE);
+        productService.searchProducts(
+                ProductSearchCriteria.builder().categoryId(category.getId()).build(), "price", "asc", PAGE);
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private void assertStatements(Supplier<Page<ProductResponse>> listing, int maxStatements) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<ProductResponse> page = listing.get();
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getContent()).allSatisfy(product -> {
+            assertThat(product.getBrand()).isNotNull();
+            assertThat(product.getImages()).hasSize(1);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(maxStatements);
+    }
+}